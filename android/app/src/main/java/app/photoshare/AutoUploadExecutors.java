@@ -0,0 +1,81 @@
+package app.photoshare;
+
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide named executors for the auto-upload pipeline
+ * io runs MediaStore cursors, SQLite and file work; network runs API calls and uploads; cpu
+ * runs photo hashing for PhotoHashPipeline. Keeping the stages on separate pools means a slow
+ * upload can't starve a scan (or the common ForkJoin pool) and thread dumps show which stage
+ * is busy.
+ */
+public final class AutoUploadExecutors {
+    private static final int IO_THREADS = 2;
+    private static final int NETWORK_THREADS = 4;
+    // Leave one core for the UI thread and the cursor walk
+    private static final int CPU_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private AutoUploadExecutors() {}
+
+    // Pools are created on first use; idle threads time out
+    private static class Holder {
+        static final ExecutorService IO = newPool("autoupload-io", IO_THREADS);
+        static final ExecutorService NETWORK = newPool("autoupload-net", NETWORK_THREADS);
+        static final ExecutorService CPU = newPool("autoupload-cpu", CPU_THREADS);
+    }
+
+    /**
+     * Executor for MediaStore queries, database and file access
+     */
+    public static ExecutorService io() {
+        return Holder.IO;
+    }
+
+    /**
+     * Executor for API calls and uploads
+     */
+    public static ExecutorService network() {
+        return Holder.NETWORK;
+    }
+
+    /**
+     * Executor for hashing and other CPU-bound work; callers bound their own concurrency on it
+     */
+    public static ExecutorService cpu() {
+        return Holder.CPU;
+    }
+
+    private static ExecutorService newPool(String name, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger(1);
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, name + "-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
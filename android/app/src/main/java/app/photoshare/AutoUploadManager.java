@@ -1,6 +1,7 @@
 package app.photoshare;
 
 import android.app.Application;
+import android.content.ContentUris;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.database.ContentObserver;
@@ -44,6 +45,22 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
     private static final String PREF_AUTO_UPLOAD_BACKGROUND = "auto_upload_background_enabled";
     private static final String PREF_AUTO_UPLOAD_WIFI_ONLY = "auto_upload_wifi_only";
     private static final String PREF_LAST_SCAN_TIME = "last_photo_scan_time";
+    private static final String CHECKPOINT_KEY_PREFIX = "auto_upload_";
+    // Signed-in user, saved by MultiEventAutoUploadPlugin
+    private static final String USER_PREFS_NAME = "MultiEventAutoUploadPrefs";
+    private static final String PREF_USER_ID = "userId";
+    
+    // Journaled IDs are looked up in batches of this size (well under SQLite's 999 argument limit)
+    private static final int JOURNAL_BATCH_SIZE = 500;
+    
+    private static final String[] PHOTO_PROJECTION = {
+        MediaStore.Images.Media._ID,
+        MediaStore.Images.Media.DATA,
+        MediaStore.Images.Media.DATE_TAKEN,
+        MediaStore.Images.Media.DATE_ADDED,
+        MediaStore.Images.Media.DISPLAY_NAME,
+        MediaStore.Images.Media.SIZE
+    };
     
     // Background thread executor for photo operations
     private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
@@ -53,6 +70,10 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
     private Context context;
     private SharedPreferences prefs;
     private PhotoContentObserver photoObserver;
+    private MediaStoreCheckpoints checkpoints;
+    private MediaChangeJournal changeJournal;
+    // Set when a change notification carried no media ID, so only a full query can find it
+    private volatile boolean fullScanPending = false;
     private boolean isAppInForeground = true;
     
     private AutoUploadManager(Context context) {
@@ -64,6 +85,8 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
         
         // Initialize photo observer
         this.photoObserver = new PhotoContentObserver();
+        this.checkpoints = new MediaStoreCheckpoints(this.context);
+        this.changeJournal = MediaChangeJournal.getInstance(this.context);
     }
     
     public static synchronized AutoUploadManager getInstance(Context context) {
@@ -211,8 +234,19 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
         return null;
     }
     
+    /**
+     * Checkpoint key for the signed-in user and event, so another account on this device
+     * starts from its own position instead of skipping photos the last one processed
+     */
+    private String getCheckpointKey(String eventId) {
+        String userId = context.getSharedPreferences(USER_PREFS_NAME, Context.MODE_PRIVATE).getString(PREF_USER_ID, null);
+        return CHECKPOINT_KEY_PREFIX + (userId != null ? userId : "none") + "_" + (eventId != null ? eventId : "none");
+    }
+    
     /**
      * Check for photos added since the last scan
+     * On API 30+ this asks MediaStore for rows with a newer GENERATION_ADDED than the last
+     * processed generation for the current event; otherwise it falls back to DATE_ADDED
      */
     private void checkForNewPhotosSinceLastScan() {
         long lastScanTime = prefs.getLong(PREF_LAST_SCAN_TIME, 0);
@@ -223,21 +257,35 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
             lastScanTime = currentTime - (60 * 60 * 1000); // 1 hour ago
         }
         
+        String eventId = getCurrentEventId();
+        String checkpointKey = getCheckpointKey(eventId);
+        
         Log.d(TAG, "🔍 Checking for new photos since: " + new java.util.Date(lastScanTime));
         
         // Use async photo query to prevent UI blocking
-        getNewPhotosSinceTimestamp(lastScanTime, new PhotoQueryCallback() {
+        getNewPhotosSinceLastScan(lastScanTime, checkpointKey, new PhotoQueryCallback() {
             @Override
-            public void onSuccess(List<PhotoItem> newPhotos) {
+            public void onSuccess(List<PhotoItem> newPhotos, long scanGeneration, long journalCutoff) {
+                boolean handled = true;
                 if (!newPhotos.isEmpty()) {
                     Log.d(TAG, "📸 Found " + newPhotos.size() + " new photos for potential auto-upload");
-                    processNewPhotosForAutoUpload(newPhotos);
+                    handled = processNewPhotosForAutoUpload(newPhotos);
                 } else {
                     Log.d(TAG, "📸 No new photos found since last scan");
                 }
                 
-                // Update last scan time after successful query
+                if (!handled) {
+                    // Skipped (no fresh token, Wi-Fi only, background...); the next scan finds them again
+                    return;
+                }
+                
+                // Update last scan time and generation once the photos are handed to upload
                 prefs.edit().putLong(PREF_LAST_SCAN_TIME, currentTime).apply();
+                if (scanGeneration >= 0) {
+                    checkpoints.put(checkpointKey, scanGeneration);
+                }
+                // Everything journaled before the query started is covered by its results
+                backgroundExecutor.execute(() -> changeJournal.removeRecordedBefore(journalCutoff));
             }
             
             @Override
@@ -250,58 +298,47 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
     }
     
     /**
-     * Get photos added since a specific timestamp
-     * @param timestamp The timestamp to search from
+     * Get photos added since the last scan
+     * @param timestamp The timestamp to search from when no MediaStore generation is stored
+     * @param checkpointKey Key of the last processed generation (API 30+)
      * @param callback Callback to receive the results on the main thread
      */
-    private void getNewPhotosSinceTimestamp(long timestamp, PhotoQueryCallback callback) {
+    private void getNewPhotosSinceLastScan(long timestamp, String checkpointKey, PhotoQueryCallback callback) {
         // Move photo queries to background thread to prevent UI blocking
         backgroundExecutor.execute(() -> {
             List<PhotoItem> photos = new ArrayList<>();
             
-            String[] projection = {
-                MediaStore.Images.Media._ID,
-                MediaStore.Images.Media.DATA,
-                MediaStore.Images.Media.DATE_TAKEN,
-                MediaStore.Images.Media.DATE_ADDED,
-                MediaStore.Images.Media.DISPLAY_NAME,
-                MediaStore.Images.Media.SIZE
-            };
+            // Capture the generation before querying so photos added meanwhile are found next time
+            long journalCutoff = System.currentTimeMillis();
+            long lastGeneration = -1;
+            long scanGeneration = -1;
+            if (MediaStoreCheckpoints.usesGenerations()) {
+                lastGeneration = checkpoints.get(checkpointKey);
+                scanGeneration = checkpoints.currentPosition();
+            }
+            
             
-            // Query for photos added since timestamp
-            String selection = MediaStore.Images.Media.DATE_ADDED + " > ?";
-            String[] selectionArgs = { String.valueOf(timestamp / 1000) }; // DATE_ADDED is in seconds
+            String selection;
+            String[] selectionArgs;
+            if (lastGeneration >= 0) {
+                // Indexed generation lookup: empty when nothing was added since the last scan
+                selection = MediaStore.MediaColumns.GENERATION_ADDED + " > ?";
+                selectionArgs = new String[] { String.valueOf(lastGeneration) };
+                Log.d(TAG, "🔁 Querying photos added after generation " + lastGeneration);
+            } else {
+                // Query for photos added since timestamp
+                selection = MediaStore.Images.Media.DATE_ADDED + " > ?";
+                selectionArgs = new String[] { String.valueOf(timestamp / 1000) }; // DATE_ADDED is in seconds
+            }
             
             try (Cursor cursor = context.getContentResolver().query(
                 MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                projection,
+                PHOTO_PROJECTION,
                 selection,
                 selectionArgs,
                 MediaStore.Images.Media.DATE_ADDED + " DESC"
             )) {
-                
-                if (cursor != null && cursor.moveToFirst()) {
-                    int idIndex = cursor.getColumnIndex(MediaStore.Images.Media._ID);
-                    int dataIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATA);
-                    int dateTakenIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_TAKEN);
-                    int dateAddedIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_ADDED);
-                    int nameIndex = cursor.getColumnIndex(MediaStore.Images.Media.DISPLAY_NAME);
-                    int sizeIndex = cursor.getColumnIndex(MediaStore.Images.Media.SIZE);
-                    
-                    do {
-                        long id = cursor.getLong(idIndex);
-                        String path = cursor.getString(dataIndex);
-                        long dateTaken = cursor.getLong(dateTakenIndex);
-                        long dateAdded = cursor.getLong(dateAddedIndex) * 1000; // Convert to milliseconds
-                        String displayName = cursor.getString(nameIndex);
-                        long size = cursor.getLong(sizeIndex);
-                        
-                        Uri photoUri = Uri.withAppendedPath(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, String.valueOf(id));
-                        PhotoItem photo = new PhotoItem(id, photoUri, path, dateTaken, dateAdded, displayName, size, 0, 0);
-                        photos.add(photo);
-                        
-                    } while (cursor.moveToNext());
-                }
+                readPhotoItems(cursor, photos);
             } catch (Exception e) {
                 Log.e(TAG, "❌ Failed to query for new photos: " + e.getMessage(), e);
                 // Post error back to main thread
@@ -310,7 +347,8 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
             }
             
             // Post results back to main thread
-            mainHandler.post(() -> callback.onSuccess(photos));
+            long generation = scanGeneration;
+            mainHandler.post(() -> callback.onSuccess(photos, generation, journalCutoff));
         });
     }
     
@@ -318,30 +356,148 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
      * Callback interface for photo query results
      */
     private interface PhotoQueryCallback {
-        void onSuccess(List<PhotoItem> photos);
+        /**
+         * @param scanGeneration MediaStore generation captured before the query, or -1 below API 30
+         * @param journalCutoff Time the query started; journal entries recorded before it are covered
+         */
+        void onSuccess(List<PhotoItem> photos, long scanGeneration, long journalCutoff);
         void onError(Exception error);
     }
     
+    /**
+     * Read photo rows (PHOTO_PROJECTION) from a cursor into PhotoItems
+     */
+    private static void readPhotoItems(Cursor cursor, List<PhotoItem> photos) {
+        if (cursor == null || !cursor.moveToFirst()) {
+            return;
+        }
+        
+        int idIndex = cursor.getColumnIndex(MediaStore.Images.Media._ID);
+        int dataIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATA);
+        int dateTakenIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_TAKEN);
+        int dateAddedIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_ADDED);
+        int nameIndex = cursor.getColumnIndex(MediaStore.Images.Media.DISPLAY_NAME);
+        int sizeIndex = cursor.getColumnIndex(MediaStore.Images.Media.SIZE);
+        
+        do {
+            long id = cursor.getLong(idIndex);
+            String path = cursor.getString(dataIndex);
+            long dateTaken = cursor.getLong(dateTakenIndex);
+            long dateAdded = cursor.getLong(dateAddedIndex) * 1000; // Convert to milliseconds
+            String displayName = cursor.getString(nameIndex);
+            long size = cursor.getLong(sizeIndex);
+            
+            Uri photoUri = Uri.withAppendedPath(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, String.valueOf(id));
+            PhotoItem photo = new PhotoItem(id, photoUri, path, dateTaken, dateAdded, displayName, size, 0, 0);
+            photos.add(photo);
+            
+        } while (cursor.moveToNext());
+    }
+    
+    /**
+     * Consume the media change journal: look up exactly the journaled IDs in batches and
+     * hand the new photos among them to auto-upload
+     * Journaled IDs are matched with the same "added since the checkpoint" condition as the full
+     * scan, so a photo is never dropped here that the full scan would have found. Only the full
+     * scan moves the checkpoint; journal entries are removed once their photos are handed off.
+     */
+    private void processChangeJournal() {
+        backgroundExecutor.execute(() -> {
+            long lastScanTime = prefs.getLong(PREF_LAST_SCAN_TIME, 0);
+            if (lastScanTime == 0) {
+                lastScanTime = System.currentTimeMillis() - (60 * 60 * 1000); // Same first-scan window as the full scan
+            }
+            String eventId = getCurrentEventId();
+            String checkpointKey = getCheckpointKey(eventId);
+            long lastGeneration = MediaStoreCheckpoints.usesGenerations() ? checkpoints.get(checkpointKey) : -1;
+            
+            // Journaled IDs also cover edits to old photos; only ones added since the checkpoint are new
+            String addedColumn;
+            String addedSince;
+            if (lastGeneration >= 0) {
+                addedColumn = MediaStore.MediaColumns.GENERATION_ADDED;
+                addedSince = String.valueOf(lastGeneration);
+            } else {
+                addedColumn = MediaStore.Images.Media.DATE_ADDED;
+                addedSince = String.valueOf(lastScanTime / 1000); // DATE_ADDED is in seconds
+            }
+            List<PhotoItem> photos = new ArrayList<>();
+            List<long[]> consumed = new ArrayList<>();
+            int journaledCount = 0;
+            
+            // Peeked batches stay journaled until handed off, so page past them by ID
+            long afterId = -1;
+            long[] batch;
+            while ((batch = changeJournal.peekBatch(afterId, JOURNAL_BATCH_SIZE)).length > 0) {
+                StringBuilder selection = new StringBuilder(MediaStore.Images.Media._ID + " IN (");
+                String[] selectionArgs = new String[batch.length + 1];
+                for (int i = 0; i < batch.length; i++) {
+                    selection.append(i == 0 ? "?" : ",?");
+                    selectionArgs[i] = String.valueOf(batch[i]);
+                }
+                selection.append(") AND ").append(addedColumn).append(" > ?");
+                selectionArgs[batch.length] = addedSince;
+                
+                try (Cursor cursor = context.getContentResolver().query(
+                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                    PHOTO_PROJECTION,
+                    selection.toString(),
+                    selectionArgs,
+                    MediaStore.Images.Media.DATE_ADDED + " DESC"
+                )) {
+                    readPhotoItems(cursor, photos);
+                } catch (Exception e) {
+                    // Leave the batch journaled for the next attempt
+                    Log.e(TAG, "❌ Failed to look up journaled photos: " + e.getMessage(), e);
+                    return;
+                }
+                
+                // Deleted or pending rows aren't returned; a later notification re-journals pending ones
+                consumed.add(batch);
+                journaledCount += batch.length;
+                afterId = batch[batch.length - 1];
+            }
+            
+            if (journaledCount == 0) {
+                return;
+            }
+            Log.d(TAG, "📒 Read " + journaledCount + " journaled changes: " + photos.size() + " new photos");
+            
+            mainHandler.post(() -> {
+                if (!photos.isEmpty() && !processNewPhotosForAutoUpload(photos)) {
+                    // Not handed off; keep the entries so the next pass retries them
+                    return;
+                }
+                backgroundExecutor.execute(() -> {
+                    for (long[] ids : consumed) {
+                        changeJournal.remove(ids);
+                    }
+                });
+            });
+        });
+    }
+    
     /**
      * Process new photos for auto-upload
+     * @return true if upload work was scheduled for the photos
      */
-    private void processNewPhotosForAutoUpload(List<PhotoItem> newPhotos) {
+    private boolean processNewPhotosForAutoUpload(List<PhotoItem> newPhotos) {
         String eventId = getCurrentEventId();
         if (eventId == null || eventId.isEmpty()) {
             Log.d(TAG, "📸 No current event context - skipping auto-upload");
-            return;
+            return false;
         }
         
         // Check if we should proceed based on app state
         if (!isAppInForeground && !isAutoUploadBackgroundEnabled()) {
             Log.d(TAG, "📸 App in background and background upload disabled - skipping");
-            return;
+            return false;
         }
         
         // Check WiFi-only restriction
         if (isAutoUploadWifiOnlyEnabled() && !isConnectedToWiFi()) {
             Log.d(TAG, "📶 WiFi-only upload enabled but not connected to WiFi - skipping auto-upload");
-            return;
+            return false;
         }
         
         Log.d(TAG, "🚀 Initiating auto-upload for " + newPhotos.size() + " photos to event: " + eventId);
@@ -354,17 +510,18 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
         if (jwtToken == null || (System.currentTimeMillis() - tokenTime) > 300000) {
             Log.w(TAG, "📸 No fresh JWT token for auto-upload - requesting new token");
             // TODO: Request fresh token from web app and retry upload
-            return;
+            return false;
         }
         
         // Create upload work request
-        scheduleAutoUploadWork(eventId, newPhotos, jwtToken);
+        return scheduleAutoUploadWork(eventId, newPhotos, jwtToken);
     }
     
     /**
      * Schedule background work for auto-upload
+     * @return true if the work was enqueued
      */
-    private void scheduleAutoUploadWork(String eventId, List<PhotoItem> photos, String jwtToken) {
+    private boolean scheduleAutoUploadWork(String eventId, List<PhotoItem> photos, String jwtToken) {
         try {
             // Convert photos to JSON string for WorkManager
             String photosJson = convertPhotosToJson(photos);
@@ -392,9 +549,11 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
             );
             
             Log.d(TAG, "✅ Auto-upload work scheduled for " + photos.size() + " photos");
+            return true;
             
         } catch (Exception e) {
             Log.e(TAG, "❌ Failed to schedule auto-upload work: " + e.getMessage(), e);
+            return false;
         }
     }
     
@@ -555,6 +714,14 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
             
             Log.d(TAG, "📸 MediaStore changed - new photo detected: " + uri);
             
+            // Journal the changed ID off the main thread; notifications without one need a full query
+            long mediaId = getMediaId(uri);
+            if (mediaId >= 0) {
+                backgroundExecutor.execute(() -> changeJournal.record(mediaId));
+            } else {
+                fullScanPending = true;
+            }
+            
             // Debounce rapid changes (wait 3 seconds before processing)
             Handler handler = new Handler(Looper.getMainLooper());
             handler.removeCallbacks(processNewPhotosRunnable);
@@ -563,7 +730,26 @@ public class AutoUploadManager implements DefaultLifecycleObserver {
         
         private final Runnable processNewPhotosRunnable = () -> {
             Log.d(TAG, "📸 Processing new photos after debounce delay");
-            checkForNewPhotosSinceLastScan();
+            if (fullScanPending) {
+                fullScanPending = false;
+                checkForNewPhotosSinceLastScan();
+            } else {
+                processChangeJournal();
+            }
         };
+        
+        /**
+         * @return MediaStore ID from an item URI, or -1 for collection URIs
+         */
+        private long getMediaId(Uri uri) {
+            if (uri == null) {
+                return -1;
+            }
+            try {
+                return ContentUris.parseId(uri);
+            } catch (NumberFormatException | UnsupportedOperationException e) {
+                return -1;
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package app.photoshare;
+
+import android.util.Base64OutputStream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * JSON request body that embeds a file as a base64 string, encoded while it streams
+ * Writes {<fields>, "<fileField>": "<base64>", <trailer>} without ever holding the file, its
+ * base64 text or the JSON document in memory. The file's SHA-256 is computed in the same
+ * pass and handed to the trailer, so fields that depend on the hash go after the file data.
+ */
+public class Base64JsonRequestBody extends RequestBody {
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SHA256_HEX_LENGTH = 64;
+
+    /**
+     * Builds the fields written after the file data
+     */
+    public interface Trailer {
+        /**
+         * @param sha256 SHA-256 hex of the file bytes written
+         * @return Fields to append; their encoded length must not depend on the hash value
+         */
+        JSONObject build(String sha256) throws JSONException;
+    }
+
+    private final File file;
+    private final long fileLength;
+    private final byte[] head;
+    private final Trailer trailer;
+    private final long contentLength;
+
+    private volatile String sha256;
+    private volatile long bytesRead;
+
+    /**
+     * @param file File to embed
+     * @param fields Fields written before the file data
+     * @param fileField Name of the base64 field
+     * @param trailer Fields written after the file data
+     */
+    public Base64JsonRequestBody(File file, JSONObject fields, String fileField, Trailer trailer) throws JSONException {
+        this.file = file;
+        this.fileLength = file.length();
+        this.trailer = trailer;
+
+        String fieldsJson = fields.toString();
+        StringBuilder head = new StringBuilder(fieldsJson.length() + fileField.length() + 8);
+        head.append(fieldsJson, 0, fieldsJson.length() - 1);
+        if (fields.length() > 0) {
+            head.append(',');
+        }
+        head.append(JSONObject.quote(fileField)).append(":\"");
+        this.head = head.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Base64 without line breaks: 4 characters per started group of 3 bytes
+        long base64Length = (fileLength + 2) / 3 * 4;
+        String placeholderHash = new String(new char[SHA256_HEX_LENGTH]).replace('\0', '0');
+        this.contentLength = this.head.length + base64Length + encodeTail(trailer.build(placeholderHash)).length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // OkHttp may write the body again on retry, so every write starts a fresh digest
+        sha256 = null;
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+
+        sink.write(head);
+
+        long total = 0;
+        OutputStream base64 = new Base64OutputStream(sink.outputStream(),
+            android.util.Base64.NO_WRAP | android.util.Base64.NO_CLOSE);
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+                base64.write(buffer, 0, count);
+                total += count;
+            }
+        } finally {
+            // Flushes the final padded group; NO_CLOSE leaves the sink open
+            base64.close();
+        }
+
+        // The declared length went out in the headers; a mismatch means the file changed under us
+        if (total != fileLength) {
+            throw new IOException("File changed while uploading: expected " + fileLength + " bytes, read " + total);
+        }
+
+        String hash = HashCodec.toHex(digest.digest());
+        try {
+            sink.write(encodeTail(trailer.build(hash)));
+        } catch (JSONException e) {
+            throw new IOException("Failed to build upload trailer", e);
+        }
+
+        bytesRead = total;
+        sha256 = hash;
+    }
+
+    /**
+     * @return SHA-256 hex of the file as last written, or null if the body hasn't been fully written
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * @return Number of file bytes encoded by the last complete write
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    // Closes the base64 string, then appends the trailer's fields and closes the object
+    private static byte[] encodeTail(JSONObject trailerFields) {
+        String trailerJson = trailerFields.toString();
+        String tail = trailerFields.length() > 0
+            ? "\"," + trailerJson.substring(1)
+            : "\"}";
+        return tail.getBytes(StandardCharsets.UTF_8);
+    }
+}
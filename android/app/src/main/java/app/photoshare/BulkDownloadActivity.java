@@ -27,8 +27,8 @@ import android.provider.MediaStore;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.IOException;
-import java.net.URL;
-import java.net.HttpURLConnection;
+import okhttp3.Request;
+import okhttp3.Response;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -440,24 +440,19 @@ public class BulkDownloadActivity extends AppCompatActivity {
     
     private boolean downloadAndSavePhoto(String imageUrl, GalleryPhotoItem photo, int index) {
         try {
-            // Download the image
-            URL url = new URL(imageUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setDoInput(true);
-            connection.connect();
-            
-            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                Log.e(TAG, "HTTP error downloading " + imageUrl + ": " + connection.getResponseCode());
-                return false;
+            // Download the image on the shared client (pooled connections across the batch)
+            Request request = new Request.Builder().url(imageUrl).build();
+            byte[] imageData;
+            try (Response response = HttpClientProvider.download().newCall(request).execute()) {
+                if (response.code() != 200 || response.body() == null) {
+                    Log.e(TAG, "HTTP error downloading " + imageUrl + ": " + response.code());
+                    return false;
+                }
+                
+                // Read the image data into a byte array first to preserve EXIF
+                imageData = readInputStreamToByteArray(response.body().byteStream());
             }
             
-            InputStream inputStream = connection.getInputStream();
-            
-            // Read the image data into a byte array first to preserve EXIF
-            byte[] imageData = readInputStreamToByteArray(inputStream);
-            inputStream.close();
-            connection.disconnect();
-            
             if (imageData == null || imageData.length == 0) {
                 Log.e(TAG, "Failed to read image data from " + imageUrl);
                 return false;
@@ -0,0 +1,96 @@
+package app.photoshare;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Request body that streams a file straight from a content URI
+ * Bytes are copied from the provider's file descriptor to the socket through Okio's segment
+ * pool, so heap use per upload is a few KB no matter how large the photo is. The length
+ * is resolved up front so OkHttp sends a Content-Length instead of chunking.
+ */
+public class ContentUriRequestBody extends RequestBody {
+    private static final String TAG = "ContentUriRequestBody";
+
+    private final ContentResolver contentResolver;
+    private final Uri uri;
+    private final MediaType contentType;
+    private final long contentLength;
+
+    /**
+     * @param contentResolver Resolver used to open the file
+     * @param uri URI of the file to stream
+     * @param contentType Media type of the body
+     * @param contentLength Size in bytes, or -1 if unknown
+     */
+    public ContentUriRequestBody(ContentResolver contentResolver, Uri uri, MediaType contentType, long contentLength) {
+        this.contentResolver = contentResolver;
+        this.uri = uri;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Create a body whose length is read from the file descriptor
+     * @param sizeHint Length to use if the provider can't report one (e.g. MediaStore SIZE), or -1
+     */
+    public static ContentUriRequestBody create(ContentResolver contentResolver, Uri uri, MediaType contentType, long sizeHint) {
+        return new ContentUriRequestBody(contentResolver, uri, contentType, queryLength(contentResolver, uri, sizeHint));
+    }
+
+    /**
+     * Get the current length of a content URI from its file descriptor
+     * MediaStore's SIZE column can lag behind edits; the descriptor reflects the bytes we'll send.
+     * @return Length in bytes, or fallback if the provider doesn't report one
+     */
+    public static long queryLength(ContentResolver contentResolver, Uri uri, long fallback) {
+        try (AssetFileDescriptor descriptor = contentResolver.openAssetFileDescriptor(uri, "r")) {
+            if (descriptor != null && descriptor.getLength() != AssetFileDescriptor.UNKNOWN_LENGTH) {
+                return descriptor.getLength();
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Could not read length of " + uri + ": " + e.getMessage());
+        }
+        return fallback;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // Opened per write: OkHttp may write the body again when it retries a request
+        InputStream inputStream = contentResolver.openInputStream(uri);
+        if (inputStream == null) {
+            throw new IOException("Failed to open input stream for: " + uri);
+        }
+
+        long total;
+        try (Source source = Okio.source(inputStream)) {
+            total = sink.writeAll(source);
+        }
+
+        // The declared length went out in the headers; a mismatch means the file changed under us
+        if (contentLength >= 0 && total != contentLength) {
+            throw new IOException("File changed while uploading: expected " + contentLength + " bytes, read " + total);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package app.photoshare;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Request body that streams a photo straight from its URI while computing its SHA-256
+ * The file is read exactly once: each chunk goes to the digest and the socket together,
+ * so uploading no longer needs a separate hashing pass or a byte[] copy of the photo.
+ * The digest is available after the body has been written (see getSha256 / hashPart).
+ */
+public class DigestingRequestBody extends RequestBody {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ContentResolver contentResolver;
+    private final Uri photoUri;
+    private final MediaType contentType;
+    private final long contentLength;
+
+    private volatile String sha256;
+    private volatile long bytesWritten;
+
+    /**
+     * @param contentResolver Resolver used to open the photo
+     * @param photoUri URI of the photo to stream
+     * @param contentType Media type of the file part
+     * @param contentLength Expected size in bytes, or -1 if unknown
+     */
+    public DigestingRequestBody(ContentResolver contentResolver, Uri photoUri, MediaType contentType, long contentLength) {
+        this.contentResolver = contentResolver;
+        this.photoUri = photoUri;
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // OkHttp may write the body again on retry, so every write starts a fresh digest
+        sha256 = null;
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 unavailable", e);
+        }
+
+        long total = 0;
+        try (InputStream inputStream = contentResolver.openInputStream(photoUri)) {
+            if (inputStream == null) {
+                throw new IOException("Failed to open input stream for: " + photoUri);
+            }
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+                sink.write(buffer, 0, bytesRead);
+                total += bytesRead;
+            }
+        }
+
+        // The declared length went out in the headers; a mismatch means the file changed under us
+        if (contentLength >= 0 && total != contentLength) {
+            throw new IOException("Photo changed while uploading: expected " + contentLength + " bytes, read " + total);
+        }
+
+        bytesWritten = total;
+        sha256 = HashCodec.toHex(digest.digest());
+    }
+
+    /**
+     * @return SHA-256 hex of the bytes last written, or null if the body hasn't been fully written
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * @return Number of bytes streamed by the last complete write
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Form part carrying the SHA-256 of this body
+     * Must be placed after this body in the same multipart request: its value is only
+     * known once the file bytes ahead of it have been streamed.
+     */
+    public RequestBody hashPart() {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return null;
+            }
+
+            @Override
+            public long contentLength() {
+                return 64; // SHA-256 hex length
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                String hash = sha256;
+                if (hash == null) {
+                    throw new IOException("File part must be written before its hash part");
+                }
+                sink.writeUtf8(hash);
+            }
+        };
+    }
+}
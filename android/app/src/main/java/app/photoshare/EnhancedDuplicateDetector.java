@@ -3,6 +3,7 @@ package app.photoshare;
 import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
+import android.os.Process;
 import android.util.Log;
 import android.webkit.WebView;
 
@@ -11,10 +12,20 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Enhanced Duplicate Detector for PhotoShare Android
@@ -31,14 +42,47 @@ public class EnhancedDuplicateDetector {
     private static final double NEAR_DUPLICATE_THRESHOLD = 0.95;     // 95% - perceptual similarity
     private static final double SIMILAR_PHOTO_THRESHOLD = 0.75;      // 75% - similar but different
     
+    // Largest Hamming distance (of 64 bits) that still meets NEAR_DUPLICATE_THRESHOLD
+    private static final int MAX_NEAR_DUPLICATE_DISTANCE = (int) Math.floor((1.0 - NEAR_DUPLICATE_THRESHOLD) * 64);
+    
+    private static final int HASH_BITS = 64;
+    private static final int SOURCE_COUNT = PhotoHash.PerceptualHashSource.values().length;
+    
     private final Context context;
     private Map<String, PhotoIdentifier> hashLookupMap;              // Fast O(1) hash lookup
-    private Map<String, PhotoIdentifier> perceptualHashLookupMap;    // Fast O(1) perceptual lookup
+    // Perceptual hashes are grouped by the image data they came from and only compared within a group
+    private Map<PhotoHash.PerceptualHashSource, Map<String, PhotoIdentifier>> perceptualHashLookupMaps;        // Fast O(1) perceptual lookup
+    private Map<PhotoHash.PerceptualHashSource, PerceptualHashIndex<PhotoIdentifier>> perceptualHashIndexes;   // Sub-linear near-duplicate search
+    // Hamming distance counts per (local source, uploaded source) for photos with a matching file hash
+    private final AtomicIntegerArray sourceDistanceCounts = new AtomicIntegerArray(SOURCE_COUNT * SOURCE_COUNT * (HASH_BITS + 1));
+    private LongHashSet uploadedFileSizes;                             // Cheap prefilter before SHA-256
+    private boolean uploadedFileSizesComplete;                         // False if any hashed identifier lacks a size
+    private ExecutorService batchExecutor;                             // Bounded pool for checkForDuplicates
+    
+    /**
+     * Receives batch duplicate-check results as each photo finishes
+     */
+    public interface DuplicateResultListener {
+        /**
+         * Called on a background worker thread
+         * @param index Position of the photo in the submitted list
+         * @param photoUri Photo that was checked
+         * @param result Duplicate check result, including per-stage timings
+         */
+        void onDuplicateResult(int index, Uri photoUri, DuplicateResult result);
+    }
     
     public EnhancedDuplicateDetector(Context context) {
         this.context = context;
         this.hashLookupMap = new HashMap<>();
-        this.perceptualHashLookupMap = new HashMap<>();
+        this.perceptualHashLookupMaps = new EnumMap<>(PhotoHash.PerceptualHashSource.class);
+        this.perceptualHashIndexes = new EnumMap<>(PhotoHash.PerceptualHashSource.class);
+        for (PhotoHash.PerceptualHashSource source : PhotoHash.PerceptualHashSource.values()) {
+            perceptualHashLookupMaps.put(source, new HashMap<>());
+            perceptualHashIndexes.put(source, new PerceptualHashIndex<>());
+        }
+        this.uploadedFileSizes = new LongHashSet();
+        this.uploadedFileSizesComplete = false;
     }
     
     
@@ -262,21 +306,43 @@ public class EnhancedDuplicateDetector {
      */
     private void buildLookupMaps(List<PhotoIdentifier> identifiers) {
         hashLookupMap.clear();
-        perceptualHashLookupMap.clear();
+        clearPerceptualHashes();
+        uploadedFileSizes.clear();
+        uploadedFileSizesComplete = true;
         
         for (PhotoIdentifier identifier : identifiers) {
             // Build hash lookup map
             if (identifier.getHash() != null && !identifier.getHash().isEmpty()) {
                 hashLookupMap.put(identifier.getHash(), identifier);
+                
+                // A file hash can only match a photo of the same size
+                if (identifier.getFileSize() > 0) {
+                    uploadedFileSizes.add(identifier.getFileSize());
+                } else {
+                    uploadedFileSizesComplete = false;
+                }
             }
             
             // Build perceptual hash lookup map
             if (identifier.getPerceptualHash() != null && !identifier.getPerceptualHash().isEmpty()) {
-                perceptualHashLookupMap.put(identifier.getPerceptualHash(), identifier);
+                PhotoHash.PerceptualHashSource source = identifier.getPerceptualHashSource() != null
+                    ? identifier.getPerceptualHashSource()
+                    : PhotoHash.PerceptualHashSource.SUBSAMPLED_DECODE;
+                
+                // Parse once up front so similarity checks compare primitive longs
+                try {
+                    perceptualHashIndexes.get(source).add(HashCodec.parseHex64(identifier.getPerceptualHash()), identifier);
+                    perceptualHashLookupMaps.get(source).put(identifier.getPerceptualHash(), identifier);
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "⚠️ Skipping unparseable perceptual hash for " + identifier.getDisplayName());
+                }
             }
         }
+        for (PerceptualHashIndex<PhotoIdentifier> index : perceptualHashIndexes.values()) {
+            index.build();
+        }
         
-        Log.d(TAG, "🗺️ Built lookup maps - Hash: " + hashLookupMap.size() + ", Perceptual: " + perceptualHashLookupMap.size());
+        Log.d(TAG, "🗺️ Built lookup maps - Hash: " + hashLookupMap.size() + ", Perceptual: " + getPerceptualHashCounts());
     }
     
     /**
@@ -286,49 +352,310 @@ public class EnhancedDuplicateDetector {
      * @return DuplicateResult with match details
      */
     public DuplicateResult checkForDuplicate(Uri photoUri) {
+        return checkForDuplicate(photoUri, -1);
+    }
+    
+    /**
+     * Check if a photo is a duplicate, using its known file size to skip the SHA-256 read
+     * when no uploaded photo has the same size
+     * @param photoUri URI of photo to check
+     * @param fileSize File size in bytes (e.g. MediaStore SIZE), or -1 if unknown
+     * @return DuplicateResult with match details
+     */
+    public DuplicateResult checkForDuplicate(Uri photoUri, long fileSize) {
         Log.d(TAG, "🔍 Checking for duplicate: " + photoUri);
         
+        long sha256Nanos = 0;
+        long perceptualHashNanos = 0;
+        long lookupNanos = 0;
+        PhotoHash.PerceptualHashSource perceptualHashSource = null;
+        
         try {
-            // Step 1: Calculate SHA-256 hash (primary detection)
-            String fileHash = PhotoHash.calculateSHA256(context, photoUri);
-            if (fileHash != null && hashLookupMap.containsKey(fileHash)) {
-                PhotoIdentifier match = hashLookupMap.get(fileHash);
-                Log.d(TAG, "✅ EXACT DUPLICATE found via file hash: " + match.getDisplayName());
-                return new DuplicateResult(true, EXACT_DUPLICATE_THRESHOLD, match, "Exact file hash match");
+            // Step 1: Calculate SHA-256 hash (primary detection), unless the size rules out an exact match
+            long stageStart = System.nanoTime();
+            boolean sizeMayMatch = !uploadedFileSizesComplete || fileSize <= 0 || uploadedFileSizes.contains(fileSize);
+            String fileHash = sizeMayMatch ? PhotoHash.calculateSHA256(context, photoUri) : null;
+            sha256Nanos = System.nanoTime() - stageStart;
+            
+            stageStart = System.nanoTime();
+            PhotoIdentifier exactMatch = fileHash != null ? hashLookupMap.get(fileHash) : null;
+            lookupNanos += System.nanoTime() - stageStart;
+            if (exactMatch != null) {
+                Log.d(TAG, "✅ EXACT DUPLICATE found via file hash: " + exactMatch.getDisplayName());
+                if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                    recordSourceDistances(photoUri, exactMatch);
+                }
+                return new DuplicateResult(true, EXACT_DUPLICATE_THRESHOLD, exactMatch, "Exact file hash match")
+                    .withTimings(sha256Nanos, perceptualHashNanos, lookupNanos);
             }
             
-            // Step 2: Calculate perceptual hash (secondary detection)
-            String perceptualHash = PhotoHash.calculatePerceptualHash(context, photoUri);
-            if (perceptualHash != null) {
+            // Step 2: Calculate perceptual hash (secondary detection) from the image data the
+            // uploaded hashes came from. A thumbnail's hash can differ from the full image's by
+            // more than MAX_NEAR_DUPLICATE_DISTANCE bits, so each source is searched separately,
+            // cheapest first, and a decode only happens if full-image hashes were uploaded.
+            Set<PhotoHash.PerceptualHashSource> remainingSources = getPerceptualHashSourcesInUse();
+            while (!remainingSources.isEmpty()) {
+                stageStart = System.nanoTime();
+                PhotoHash.PerceptualHash calculated = PhotoHash.calculatePerceptualHashWithSource(context, photoUri, remainingSources);
+                perceptualHashNanos += System.nanoTime() - stageStart;
+                if (calculated == null) {
+                    break;
+                }
+                String perceptualHash = calculated.hash;
+                perceptualHashSource = calculated.source;
+                remainingSources.remove(calculated.source);
+                stageStart = System.nanoTime();
+                
                 // Check for exact perceptual hash match
-                if (perceptualHashLookupMap.containsKey(perceptualHash)) {
-                    PhotoIdentifier match = perceptualHashLookupMap.get(perceptualHash);
-                    Log.d(TAG, "✅ PERCEPTUAL DUPLICATE found via exact perceptual hash: " + match.getDisplayName());
-                    return new DuplicateResult(true, NEAR_DUPLICATE_THRESHOLD, match, "Exact perceptual hash match");
+                PhotoIdentifier perceptualMatch = perceptualHashLookupMaps.get(perceptualHashSource).get(perceptualHash);
+                if (perceptualMatch != null) {
+                    lookupNanos += System.nanoTime() - stageStart;
+                    Log.d(TAG, "✅ PERCEPTUAL DUPLICATE found via exact perceptual hash: " + perceptualMatch.getDisplayName());
+                    return new DuplicateResult(true, NEAR_DUPLICATE_THRESHOLD, perceptualMatch, "Exact perceptual hash match")
+                        .withTimings(sha256Nanos, perceptualHashNanos, lookupNanos)
+                        .withPerceptualHashSource(perceptualHashSource);
                 }
                 
-                // Check for similar perceptual hashes using Hamming distance
-                for (Map.Entry<String, PhotoIdentifier> entry : perceptualHashLookupMap.entrySet()) {
-                    String uploadedHash = entry.getKey();
-                    double similarity = PhotoHash.calculateSimilarity(perceptualHash, uploadedHash);
-                    
-                    if (similarity >= NEAR_DUPLICATE_THRESHOLD) {
-                        PhotoIdentifier match = entry.getValue();
-                        Log.d(TAG, String.format("✅ SIMILAR DUPLICATE found via perceptual similarity (%.1f%%): %s", similarity * 100, match.getDisplayName()));
-                        return new DuplicateResult(true, similarity, match, String.format("Perceptual similarity: %.1f%%", similarity * 100));
-                    }
+                // Check for similar perceptual hashes using the multi-index Hamming search
+                PerceptualHashIndex.Match<PhotoIdentifier> nearest = null;
+                try {
+                    nearest = perceptualHashIndexes.get(perceptualHashSource)
+                        .findNearest(HashCodec.parseHex64(perceptualHash), MAX_NEAR_DUPLICATE_DISTANCE);
+                } catch (NumberFormatException e) {
+                    Log.w(TAG, "⚠️ Invalid perceptual hash for " + photoUri + ": " + perceptualHash);
+                }
+                lookupNanos += System.nanoTime() - stageStart;
+                
+                if (nearest != null) {
+                    double similarity = PhotoHash.calculateSimilarity(nearest.distance);
+                    PhotoIdentifier match = nearest.value;
+                    Log.d(TAG, String.format("✅ SIMILAR DUPLICATE found via perceptual similarity (%.1f%%): %s", similarity * 100, match.getDisplayName()));
+                    return new DuplicateResult(true, similarity, match, String.format("Perceptual similarity: %.1f%%", similarity * 100))
+                        .withTimings(sha256Nanos, perceptualHashNanos, lookupNanos)
+                        .withPerceptualHashSource(perceptualHashSource);
                 }
             }
             
             Log.d(TAG, "❌ No duplicate found for: " + photoUri);
-            return new DuplicateResult(false, 0.0, null, "No duplicate detected");
+            return new DuplicateResult(false, 0.0, null, "No duplicate detected")
+                .withTimings(sha256Nanos, perceptualHashNanos, lookupNanos)
+                .withPerceptualHashSource(perceptualHashSource);
             
         } catch (Exception e) {
             Log.e(TAG, "❌ Error checking for duplicate: " + e.getMessage(), e);
-            return new DuplicateResult(false, 0.0, null, "Error during duplicate check");
+            return new DuplicateResult(false, 0.0, null, "Error during duplicate check")
+                .withTimings(sha256Nanos, perceptualHashNanos, lookupNanos)
+                .withPerceptualHashSource(perceptualHashSource);
         }
     }
     
+    /**
+     * @return Sources that at least one uploaded perceptual hash came from
+     */
+    private Set<PhotoHash.PerceptualHashSource> getPerceptualHashSourcesInUse() {
+        Set<PhotoHash.PerceptualHashSource> sources = EnumSet.noneOf(PhotoHash.PerceptualHashSource.class);
+        for (Map.Entry<PhotoHash.PerceptualHashSource, Map<String, PhotoIdentifier>> entry : perceptualHashLookupMaps.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                sources.add(entry.getKey());
+            }
+        }
+        return sources;
+    }
+    
+    private String getPerceptualHashCounts() {
+        StringBuilder counts = new StringBuilder();
+        for (Map.Entry<PhotoHash.PerceptualHashSource, Map<String, PhotoIdentifier>> entry : perceptualHashLookupMaps.entrySet()) {
+            counts.append(counts.length() > 0 ? ", " : "").append(entry.getKey()).append('=').append(entry.getValue().size());
+        }
+        return counts.toString();
+    }
+    
+    private void clearPerceptualHashes() {
+        for (Map<String, PhotoIdentifier> lookupMap : perceptualHashLookupMaps.values()) {
+            lookupMap.clear();
+        }
+        for (PerceptualHashIndex<PhotoIdentifier> index : perceptualHashIndexes.values()) {
+            index.clear();
+        }
+    }
+    
+    /**
+     * Measure how far each local source's hash is from the uploaded hash of the same photo
+     * Only runs with verbose logging on (adb shell setprop log.tag.DuplicateDetector VERBOSE),
+     * since it hashes the photo once per source. The distribution is logged after each batch.
+     */
+    private void recordSourceDistances(Uri photoUri, PhotoIdentifier uploaded) {
+        long uploadedHash;
+        try {
+            uploadedHash = HashCodec.parseHex64(uploaded.getPerceptualHash());
+        } catch (NumberFormatException | NullPointerException e) {
+            return;
+        }
+        PhotoHash.PerceptualHashSource uploadedSource = uploaded.getPerceptualHashSource() != null
+            ? uploaded.getPerceptualHashSource()
+            : PhotoHash.PerceptualHashSource.SUBSAMPLED_DECODE;
+        
+        for (PhotoHash.PerceptualHashSource localSource : PhotoHash.PerceptualHashSource.values()) {
+            PhotoHash.PerceptualHash local = PhotoHash.calculatePerceptualHashWithSource(context, photoUri, EnumSet.of(localSource));
+            if (local == null) {
+                continue;
+            }
+            int distance = Long.bitCount(HashCodec.parseHex64(local.hash) ^ uploadedHash);
+            sourceDistanceCounts.incrementAndGet(distanceBucket(localSource, uploadedSource, distance));
+            Log.v(TAG, "📏 " + localSource + " vs uploaded " + uploadedSource + ": " + distance + " bits for " + photoUri);
+        }
+    }
+    
+    private static int distanceBucket(PhotoHash.PerceptualHashSource localSource, PhotoHash.PerceptualHashSource uploadedSource, int distance) {
+        return (localSource.ordinal() * SOURCE_COUNT + uploadedSource.ordinal()) * (HASH_BITS + 1) + distance;
+    }
+    
+    /**
+     * Log the measured distance distribution per (local source, uploaded source) pair
+     */
+    private void logSourceDistances() {
+        for (PhotoHash.PerceptualHashSource localSource : PhotoHash.PerceptualHashSource.values()) {
+            for (PhotoHash.PerceptualHashSource uploadedSource : PhotoHash.PerceptualHashSource.values()) {
+                int[] counts = new int[HASH_BITS + 1];
+                int total = 0;
+                for (int distance = 0; distance <= HASH_BITS; distance++) {
+                    counts[distance] = sourceDistanceCounts.get(distanceBucket(localSource, uploadedSource, distance));
+                    total += counts[distance];
+                }
+                if (total == 0) {
+                    continue;
+                }
+                
+                int withinThreshold = 0;
+                int median = -1;
+                int p90 = -1;
+                int max = 0;
+                int seen = 0;
+                for (int distance = 0; distance <= HASH_BITS; distance++) {
+                    if (counts[distance] == 0) {
+                        continue;
+                    }
+                    seen += counts[distance];
+                    max = distance;
+                    if (distance <= MAX_NEAR_DUPLICATE_DISTANCE) {
+                        withinThreshold += counts[distance];
+                    }
+                    if (median < 0 && seen * 2 >= total) {
+                        median = distance;
+                    }
+                    if (p90 < 0 && seen * 10 >= total * 9) {
+                        p90 = distance;
+                    }
+                }
+                Log.v(TAG, String.format("📏 %s vs uploaded %s: n=%d, median %d, p90 %d, max %d bits, %d%% within %d",
+                    localSource, uploadedSource, total, median, p90, max,
+                    withinThreshold * 100 / total, MAX_NEAR_DUPLICATE_DISTANCE));
+            }
+        }
+    }
+    
+    /**
+     * Check many photos for duplicates on a bounded background pool
+     * Results are streamed to the listener as each photo finishes (completion order, on a
+     * worker thread); the returned future completes after the last one. Cancelling the
+     * future skips photos that haven't started yet. Lookup maps must not be rebuilt while
+     * a batch is running.
+     * @param photoUris Photos to check
+     * @param fileSizes File size per photo for the size prefilter (same order), or null if unknown
+     * @param listener Receives each result
+     * @return Future completing when every photo has been checked
+     */
+    public CompletableFuture<Void> checkForDuplicates(List<Uri> photoUris, long[] fileSizes, DuplicateResultListener listener) {
+        CompletableFuture<Void> batch = new CompletableFuture<>();
+        int total = photoUris.size();
+        if (total == 0) {
+            batch.complete(null);
+            return batch;
+        }
+        
+        Log.d(TAG, "🔍 Batch duplicate check for " + total + " photos");
+        long batchStart = System.nanoTime();
+        AtomicInteger remaining = new AtomicInteger(total);
+        AtomicLong totalSha256Nanos = new AtomicLong();
+        AtomicLong totalPerceptualHashNanos = new AtomicLong();
+        AtomicLong totalLookupNanos = new AtomicLong();
+        AtomicInteger exifThumbnailHashes = new AtomicInteger();
+        ExecutorService executor = getBatchExecutor();
+        
+        for (int i = 0; i < total; i++) {
+            final int index = i;
+            final Uri photoUri = photoUris.get(i);
+            final long fileSize = fileSizes != null ? fileSizes[i] : -1;
+            
+            executor.execute(() -> {
+                if (batch.isDone()) {
+                    return; // Cancelled
+                }
+                
+                DuplicateResult result = checkForDuplicate(photoUri, fileSize);
+                totalSha256Nanos.addAndGet(result.getSha256Nanos());
+                totalPerceptualHashNanos.addAndGet(result.getPerceptualHashNanos());
+                totalLookupNanos.addAndGet(result.getLookupNanos());
+                if (result.getPerceptualHashSource() == PhotoHash.PerceptualHashSource.EXIF_THUMBNAIL) {
+                    exifThumbnailHashes.incrementAndGet();
+                }
+                
+                if (!batch.isDone()) {
+                    try {
+                        listener.onDuplicateResult(index, photoUri, result);
+                    } catch (Exception e) {
+                        Log.e(TAG, "❌ Duplicate result listener failed: " + e.getMessage(), e);
+                    }
+                }
+                
+                if (remaining.decrementAndGet() == 0) {
+                    Log.d(TAG, String.format("⏱️ Batch of %d checked in %d ms (SHA-256 %d ms, dHash %d ms with %d from EXIF thumbnails, lookup %d ms across workers)",
+                        total,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart),
+                        TimeUnit.NANOSECONDS.toMillis(totalSha256Nanos.get()),
+                        TimeUnit.NANOSECONDS.toMillis(totalPerceptualHashNanos.get()),
+                        exifThumbnailHashes.get(),
+                        TimeUnit.NANOSECONDS.toMillis(totalLookupNanos.get())));
+                    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                        logSourceDistances();
+                    }
+                    batch.complete(null);
+                }
+            });
+        }
+        
+        return batch;
+    }
+    
+    /**
+     * Check many photos for duplicates without size information
+     * @see #checkForDuplicates(List, long[], DuplicateResultListener)
+     */
+    public CompletableFuture<Void> checkForDuplicates(List<Uri> photoUris, DuplicateResultListener listener) {
+        return checkForDuplicates(photoUris, null, listener);
+    }
+    
+    private synchronized ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            int workerCount = PhotoHashPipeline.recommendedWorkerCount(context);
+            AtomicInteger threadCount = new AtomicInteger(1);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(workerCount, workerCount, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(() -> {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }, "duplicate-check-" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            // Idle workers exit, so a detector kept around by the picker holds no threads
+            executor.allowCoreThreadTimeOut(true);
+            batchExecutor = executor;
+            Log.d(TAG, "🧵 Duplicate check pool started with " + workerCount + " workers");
+        }
+        return batchExecutor;
+    }
+    
     /**
      * Check if photo is uploaded by simple ID (fallback for compatibility)
      * @param photoId Photo ID to check
@@ -351,8 +678,8 @@ public class EnhancedDuplicateDetector {
      * @return Debug info string
      */
     public String getDebugInfo() {
-        return String.format("EnhancedDuplicateDetector: %d hash entries, %d perceptual entries", 
-            hashLookupMap.size(), perceptualHashLookupMap.size());
+        return String.format("EnhancedDuplicateDetector: %d hash entries, perceptual entries %s", 
+            hashLookupMap.size(), getPerceptualHashCounts());
     }
     
     /**
@@ -360,7 +687,9 @@ public class EnhancedDuplicateDetector {
      */
     public void clear() {
         hashLookupMap.clear();
-        perceptualHashLookupMap.clear();
+        clearPerceptualHashes();
+        uploadedFileSizes.clear();
+        uploadedFileSizesComplete = false;
         Log.d(TAG, "🗑️ Cleared duplicate detector cache");
     }
     
@@ -373,6 +702,14 @@ public class EnhancedDuplicateDetector {
         private final PhotoIdentifier matchedIdentifier;
         private final String reason;
         
+        // Per-stage timings in nanoseconds (0 if the stage didn't run)
+        private long sha256Nanos;
+        private long perceptualHashNanos;
+        private long lookupNanos;
+        
+        // Image data the perceptual hash came from (null if it wasn't calculated)
+        private PhotoHash.PerceptualHashSource perceptualHashSource;
+        
         public DuplicateResult(boolean isDuplicate, double similarity, PhotoIdentifier matchedIdentifier, String reason) {
             this.isDuplicate = isDuplicate;
             this.similarity = similarity;
@@ -380,15 +717,32 @@ public class EnhancedDuplicateDetector {
             this.reason = reason;
         }
         
+        DuplicateResult withTimings(long sha256Nanos, long perceptualHashNanos, long lookupNanos) {
+            this.sha256Nanos = sha256Nanos;
+            this.perceptualHashNanos = perceptualHashNanos;
+            this.lookupNanos = lookupNanos;
+            return this;
+        }
+        
+        DuplicateResult withPerceptualHashSource(PhotoHash.PerceptualHashSource perceptualHashSource) {
+            this.perceptualHashSource = perceptualHashSource;
+            return this;
+        }
+        
         public boolean isDuplicate() { return isDuplicate; }
         public double getSimilarity() { return similarity; }
         public PhotoIdentifier getMatchedIdentifier() { return matchedIdentifier; }
         public String getReason() { return reason; }
+        public long getSha256Nanos() { return sha256Nanos; }
+        public long getPerceptualHashNanos() { return perceptualHashNanos; }
+        public long getLookupNanos() { return lookupNanos; }
+        public PhotoHash.PerceptualHashSource getPerceptualHashSource() { return perceptualHashSource; }
         
         @Override
         public String toString() {
-            return String.format("DuplicateResult{isDuplicate=%s, similarity=%.1f%%, reason='%s'}", 
-                isDuplicate, similarity * 100, reason);
+            return String.format("DuplicateResult{isDuplicate=%s, similarity=%.1f%%, reason='%s', sha256=%dus, dHash=%dus (%s), lookup=%dus}", 
+                isDuplicate, similarity * 100, reason,
+                sha256Nanos / 1000, perceptualHashNanos / 1000, perceptualHashSource, lookupNanos / 1000);
         }
     }
 }
\ No newline at end of file
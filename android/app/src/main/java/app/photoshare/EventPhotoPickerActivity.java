@@ -77,6 +77,13 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
     private long endMillis;
     private Set<String> uploadedPhotoIds;
     private EnhancedDuplicateDetector duplicateDetector;
+    private MediaStorePhotoPager photoPager;
+    private int loadedPhotoCount = 0;
+    private int totalPhotoCount = -1;  // From the media timeline, once known
+    
+    private static final int PHOTO_PAGE_SIZE = 150;
+    // Start loading the next page when this many items remain below the last visible one
+    private static final int PHOTO_PREFETCH_DISTANCE = 60;
     
     // Static field for passing duplicate detector between activities
     private static EnhancedDuplicateDetector staticDuplicateDetector;
@@ -197,6 +204,16 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
         
         recyclerPhotos.setLayoutManager(layoutManager);
         recyclerPhotos.setAdapter(adapter);
+        
+        // Append the next page as the user scrolls toward the end of what's loaded
+        recyclerPhotos.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && photoPager != null && photoPager.hasMore() && isNearEndOfGrid()) {
+                    loadNextPhotoPage();
+                }
+            }
+        });
     }
 
     private void setupButtons() {
@@ -229,6 +246,7 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
             Log.e(TAG, "Invalid date range provided: startMillis=" + startMillis + ", endMillis=" + endMillis);
             Toast.makeText(this, "Invalid event date range. Cannot filter photos.", Toast.LENGTH_LONG).show();
             updatePhotoCount(0);
+            hideCheckingDuplicatesOverlay();
             return;
         }
         
@@ -236,91 +254,83 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
         SimpleDateFormat debugFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
         Log.d(TAG, "Event date range: " + debugFormat.format(new Date(startMillis)) + " to " + debugFormat.format(new Date(endMillis)));
         
-        String[] projection = {
-            MediaStore.Images.Media._ID,
-            MediaStore.Images.Media.DATA,
-            MediaStore.Images.Media.DATE_TAKEN,
-            MediaStore.Images.Media.DATE_ADDED,
-            MediaStore.Images.Media.DISPLAY_NAME,
-            MediaStore.Images.Media.SIZE,
-            MediaStore.Images.Media.WIDTH,
-            MediaStore.Images.Media.HEIGHT
-        };
-
-        // Use DATE_TAKEN for primary filtering (when photo was actually taken)
-        // DATE_TAKEN is in milliseconds, so we can use it directly
-        String selection = MediaStore.Images.Media.DATE_TAKEN + " >= ? AND " + 
-                          MediaStore.Images.Media.DATE_TAKEN + " <= ?";
-        String[] selectionArgs = {
-            String.valueOf(startMillis),
-            String.valueOf(endMillis)
-        };
-        
-        Log.d(TAG, "MediaStore query - Selection: " + selection);
-        Log.d(TAG, "MediaStore query - Args: [" + selectionArgs[0] + ", " + selectionArgs[1] + "]");
-
-        List<PhotoItem> photos = new ArrayList<>();
-        Cursor cursor = null;
-
-        try {
-            cursor = getContentResolver().query(
-                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                projection,
-                selection,
-                selectionArgs,
-                MediaStore.Images.Media.DATE_TAKEN + " DESC"
-            );
-
-            if (cursor != null && cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndex(MediaStore.Images.Media._ID);
-                int dataIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATA);
-                int dateTakenIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_TAKEN);
-                int dateAddedIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_ADDED);
-                int nameIndex = cursor.getColumnIndex(MediaStore.Images.Media.DISPLAY_NAME);
-                int sizeIndex = cursor.getColumnIndex(MediaStore.Images.Media.SIZE);
-                int widthIndex = cursor.getColumnIndex(MediaStore.Images.Media.WIDTH);
-                int heightIndex = cursor.getColumnIndex(MediaStore.Images.Media.HEIGHT);
-
-                do {
-                    long id = cursor.getLong(idIndex);
-                    String path = cursor.getString(dataIndex);
-                    long dateTaken = cursor.getLong(dateTakenIndex);
-                    long dateAdded = cursor.getLong(dateAddedIndex);
-                    String displayName = cursor.getString(nameIndex);
-                    long size = cursor.getLong(sizeIndex);
-                    int width = cursor.getInt(widthIndex);
-                    int height = cursor.getInt(heightIndex);
-
-                    // Log photo timestamp for debugging
-                    SimpleDateFormat photoDebugFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-                    String dateTakenFormatted = dateTaken > 0 ? photoDebugFormat.format(new Date(dateTaken)) : "No date taken";
-                    String dateAddedFormatted = dateAdded > 0 ? photoDebugFormat.format(new Date(dateAdded * 1000)) : "No date added";
-                    
-                    Log.d(TAG, "Photo: " + displayName + " - DateTaken: " + dateTakenFormatted + " (" + dateTaken + "), DateAdded: " + dateAddedFormatted + " (" + dateAdded + ")");
-
-                    Uri uri = Uri.withAppendedPath(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, String.valueOf(id));
-                    PhotoItem photo = new PhotoItem(id, uri, path, dateTaken, dateAdded, displayName, size, width, height);
-                    photos.add(photo);
-                } while (cursor.moveToNext());
+        // Use DATE_TAKEN for filtering (when photo was actually taken); pages load off the main thread
+        if (photoPager != null) {
+            photoPager.close();
+        }
+        photoPager = new MediaStorePhotoPager(this, startMillis, endMillis, PHOTO_PAGE_SIZE);
+        adapter.setPhotos(new ArrayList<>());
+        loadedPhotoCount = 0;
+        totalPhotoCount = -1;
+        loadNextPhotoPage();
+        
+        // The shared media timeline knows the range's total before the pages do
+        MediaTimeline.getInstance(this).whenLoaded().thenAccept(timeline -> {
+            int total = timeline.countInRange(startMillis, endMillis);
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed() || photoPager == null || !photoPager.hasMore()) {
+                    return; // Gone, or every page is already in and the count is exact
+                }
+                totalPhotoCount = total;
+                updatePhotoCount(loadedPhotoCount);
+            });
+        });
+    }
+    
+    /**
+     * Load the next page of photos and append it to the grid
+     * The first page replaces the "Checking for duplicates" overlay so it doesn't wait for the whole range
+     */
+    private void loadNextPhotoPage() {
+        if (photoPager == null) {
+            return;
+        }
+        photoPager.loadNextPage(new MediaStorePhotoPager.PageCallback() {
+            @Override
+            public void onPageLoaded(List<PhotoItem> photos, boolean hasMore) {
+                loadedPhotoCount += photos.size();
+                Log.d(TAG, "Loaded page of " + photos.size() + " photos (" + loadedPhotoCount + " total, more: " + hasMore + ")");
+                
+                adapter.appendPhotos(photos);
+                if (!hasMore) {
+                    totalPhotoCount = loadedPhotoCount; // Exact once every page is in
+                }
+                updatePhotoCount(loadedPhotoCount);
+                hideCheckingDuplicatesOverlay();
+                
+                // Keep going if this page didn't fill the screen (checked after the grid lays it out)
+                if (hasMore) {
+                    recyclerPhotos.post(() -> {
+                        if (isNearEndOfGrid()) {
+                            loadNextPhotoPage();
+                        }
+                    });
+                }
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading photos: " + e.getMessage(), e);
-            Toast.makeText(this, "Error loading photos: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+            
+            @Override
+            public void onError(Exception error) {
+                Log.e(TAG, "Error loading photos: " + error.getMessage(), error);
+                Toast.makeText(EventPhotoPickerActivity.this, "Error loading photos: " + error.getMessage(), Toast.LENGTH_LONG).show();
+                hideCheckingDuplicatesOverlay();
             }
+        });
+    }
+    
+    private boolean isNearEndOfGrid() {
+        GridLayoutManager layoutManager = (GridLayoutManager) recyclerPhotos.getLayoutManager();
+        if (layoutManager == null) {
+            return false;
         }
-
-        Log.d(TAG, "Loaded " + photos.size() + " photos");
-        
-        adapter.setPhotos(photos);
-        updatePhotoCount(photos.size());
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        return lastVisible == RecyclerView.NO_POSITION
+            || lastVisible >= adapter.getItemCount() - PHOTO_PREFETCH_DISTANCE;
     }
 
 
     private void updatePhotoCount(int count) {
-        tvPhotoCount.setText(count + " photos");
+        // Show the range total while later pages are still loading
+        tvPhotoCount.setText(Math.max(count, totalPhotoCount) + " photos");
     }
 
     @Override
@@ -1184,8 +1194,9 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
         // Run upload in background thread
         new Thread(() -> {
             try {
-                // Step 1: Read photo data and convert to Base64
-                String base64Data = readPhotoAsBase64(photo);
+                // Step 1: Read photo data and convert to Base64, hashing the same bytes
+                java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+                String base64Data = readPhotoAsBase64(photo, digest);
                 if (base64Data == null) {
                     Log.e(TAG, "❌ Failed to read photo data: " + photo.getDisplayName());
                     callback.onComplete(false);
@@ -1199,6 +1210,11 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
                 boolean uploadSuccess = callMobileUploadAPI(requestBody, jwtToken);
                 
                 Log.d(TAG, "📤 Upload result for " + photo.getDisplayName() + ": " + (uploadSuccess ? "SUCCESS" : "FAILED"));
+                if (uploadSuccess) {
+                    // Keep the event's cached filter current so auto-upload skips this photo
+                    new UploadedHashFilterStore(this).recordUpload(
+                        getCleanEventId(), HashCodec.toHex(digest.digest()), photo.getSize());
+                }
                 callback.onComplete(uploadSuccess);
                 
             } catch (Exception e) {
@@ -1208,19 +1224,26 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
         }).start();
     }
     
-    private String readPhotoAsBase64(PhotoItem photo) {
-        try {
-            // Read photo from URI
-            InputStream inputStream = getContentResolver().openInputStream(photo.getUri());
+    /**
+     * @param digest Updated with the photo's bytes
+     */
+    private String readPhotoAsBase64(PhotoItem photo, java.security.MessageDigest digest) {
+        try (InputStream inputStream = getContentResolver().openInputStream(photo.getUri())) {
             if (inputStream == null) {
                 Log.e(TAG, "❌ Could not open input stream for: " + photo.getDisplayName());
                 return null;
             }
             
-            // Read into byte array
-            byte[] photoBytes = new byte[inputStream.available()];
-            inputStream.read(photoBytes);
-            inputStream.close();
+            // Read until EOF; available() is only an estimate and a single read() may return less
+            ByteArrayOutputStream photoData = new ByteArrayOutputStream(
+                photo.getSize() > 0 && photo.getSize() <= Integer.MAX_VALUE ? (int) photo.getSize() : 64 * 1024);
+            byte[] buffer = new byte[64 * 1024];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+                photoData.write(buffer, 0, count);
+            }
+            byte[] photoBytes = photoData.toByteArray();
             
             // Convert to Base64
             String base64 = Base64.encodeToString(photoBytes, Base64.DEFAULT);
@@ -1247,18 +1270,25 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
         }
     }
     
+    /**
+     * Extract clean event ID from full URL if needed
+     */
+    private String getCleanEventId() {
+        String cleanEventId = eventId;
+        if (eventId != null && eventId.contains("/event/")) {
+            // Extract just the event ID part from URLs like "https://photoshare.ai/event/6724e0bb1f5d6e4ef71e"
+            int eventIndex = eventId.lastIndexOf("/event/");
+            if (eventIndex != -1) {
+                cleanEventId = eventId.substring(eventIndex + 7); // Skip "/event/"
+                Log.d(TAG, "🔧 Extracted clean event ID: '" + cleanEventId + "' from full URL: '" + eventId + "'");
+            }
+        }
+        return cleanEventId;
+    }
+    
     private String buildUploadRequestBody(PhotoItem photo, String base64Data) {
         try {
-            // Extract clean event ID from full URL if needed
-            String cleanEventId = eventId;
-            if (eventId != null && eventId.contains("/event/")) {
-                // Extract just the event ID part from URLs like "https://photoshare.ai/event/6724e0bb1f5d6e4ef71e"
-                int eventIndex = eventId.lastIndexOf("/event/");
-                if (eventIndex != -1) {
-                    cleanEventId = eventId.substring(eventIndex + 7); // Skip "/event/"
-                    Log.d(TAG, "🔧 Extracted clean event ID: '" + cleanEventId + "' from full URL: '" + eventId + "'");
-                }
-            }
+            String cleanEventId = getCleanEventId();
             
             // Build JSON request body according to API spec
             StringBuilder json = new StringBuilder();
@@ -1626,12 +1656,9 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
     private void loadPhotosWithDuplicateDetection() {
         Log.d(TAG, "📱 Loading photos with duplicate detection (iOS-style)");
         
-        // Load device photos first
+        // Load device photos first; the overlay is hidden once the first page is shown
         loadPhotos();
         
-        // Hide the overlay and show results
-        hideCheckingDuplicatesOverlay();
-        
         Log.d(TAG, "📱 iOS-style photo loading complete");
     }
     
@@ -1975,6 +2002,12 @@ public class EventPhotoPickerActivity extends AppCompatActivity implements Photo
         
         removeSimpleUploadOverlay();
         
+        // Stop paging in photos for a closed picker
+        if (photoPager != null) {
+            photoPager.close();
+            photoPager = null;
+        }
+        
         // Dismiss any open dialogs to prevent window leaks
         if (uploadProgressDialog != null && uploadProgressDialog.isShowing()) {
             uploadProgressDialog.dismiss();
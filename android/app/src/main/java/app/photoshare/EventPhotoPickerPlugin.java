@@ -13,8 +13,6 @@ import android.os.Handler;
 import android.provider.Settings;
 import android.webkit.ValueCallback;
 import android.util.Log;
-import android.database.Cursor;
-import android.provider.MediaStore;
 import androidx.core.content.ContextCompat;
 import androidx.core.app.ActivityCompat;
 import java.util.ArrayList;
@@ -285,178 +283,40 @@ public class EventPhotoPickerPlugin extends Plugin {
         return -1;
     }
 
+    /**
+     * Count photos taken in the event range from the shared media timeline
+     * @return Photo count, or -1 if the timeline is still loading (the count is logged once it has loaded)
+     */
     private int getPhotosInDateRange(long startMillis, long endMillis) {
         if (startMillis == -1 || endMillis == -1) {
             Log.d("EventPhotoPicker", "Invalid date range, returning 0 photos");
             return 0;
         }
         
-        Log.d("EventPhotoPicker", "=== PHOTO FILTERING DEBUG ===");
-        Log.d("EventPhotoPicker", "Event range: " + startMillis + " to " + endMillis);
-        Log.d("EventPhotoPicker", "Event range (human): " + new Date(startMillis) + " to " + new Date(endMillis));
-        
-        // Convert to seconds for DATE_ADDED
-        long startSeconds = startMillis / 1000;
-        long endSeconds = endMillis / 1000;
-        
-        String[] projection = {
-            MediaStore.Images.Media._ID,
-            MediaStore.Images.Media.DATE_TAKEN,
-            MediaStore.Images.Media.DATE_ADDED,
-            MediaStore.Images.Media.DISPLAY_NAME,
-            MediaStore.Images.Media.DATA
-        };
-        
-        int photoCount = 0;
-        Cursor cursor = null;
-        
-        // First, let's get ALL photos to see what's available
-        try {
-            Log.d("EventPhotoPicker", "--- Querying ALL photos for debugging ---");
-            cursor = getContext().getContentResolver().query(
-                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                projection,
-                null,
-                null,
-                MediaStore.Images.Media.DATE_TAKEN + " DESC"
-            );
-            
-            if (cursor != null && cursor.getCount() > 0) {
-                Log.d("EventPhotoPicker", "Total photos available: " + cursor.getCount());
-                
-                int idIndex = cursor.getColumnIndex(MediaStore.Images.Media._ID);
-                int dateTakenIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_TAKEN);
-                int dateAddedIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_ADDED);
-                int nameIndex = cursor.getColumnIndex(MediaStore.Images.Media.DISPLAY_NAME);
-                
-                // Current time for debugging
-                long currentTime = System.currentTimeMillis();
-                Log.d("EventPhotoPicker", "Current time: " + currentTime + " (" + new Date(currentTime) + ")");
-                
-                cursor.moveToFirst();
-                int photosToShow = Math.min(5, cursor.getCount());
-                Log.d("EventPhotoPicker", "Showing first " + photosToShow + " photos:");
-                
-                for (int i = 0; i < photosToShow; i++) {
-                    long dateTaken = cursor.getLong(dateTakenIndex);
-                    long dateAdded = cursor.getLong(dateAddedIndex);
-                    String name = cursor.getString(nameIndex);
-                    
-                    Log.d("EventPhotoPicker", "Photo " + i + ": " + name);
-                    Log.d("EventPhotoPicker", "  DATE_TAKEN: " + dateTaken + " (" + new Date(dateTaken) + ")");
-                    Log.d("EventPhotoPicker", "  DATE_ADDED: " + dateAdded + " (" + new Date(dateAdded * 1000) + ")");
-                    Log.d("EventPhotoPicker", "  In range (taken): " + (dateTaken >= startMillis && dateTaken <= endMillis));
-                    Log.d("EventPhotoPicker", "  In range (added): " + (dateAdded >= startSeconds && dateAdded <= endSeconds));
-                    
-                    if (!cursor.moveToNext()) break;
-                }
-            } else {
-                Log.d("EventPhotoPicker", "No photos found on device - possible permission issue!");
-                Log.d("EventPhotoPicker", "Check if READ_EXTERNAL_STORAGE or READ_MEDIA_IMAGES permission is granted");
-                return 0;
-            }
-            cursor.close();
-        } catch (Exception e) {
-            Log.e("EventPhotoPicker", "Error querying all photos: " + e.getMessage());
-            if (cursor != null) cursor.close();
-        }
-        
-        // Now query with DATE_TAKEN filter
-        try {
-            Log.d("EventPhotoPicker", "--- Querying with DATE_TAKEN filter ---");
-            String selection = MediaStore.Images.Media.DATE_TAKEN + " >= ? AND " + 
-                              MediaStore.Images.Media.DATE_TAKEN + " <= ?";
-            String[] selectionArgs = {
-                String.valueOf(startMillis),
-                String.valueOf(endMillis)
-            };
-            
-            Log.d("EventPhotoPicker", "DATE_TAKEN query: " + selection);
-            Log.d("EventPhotoPicker", "Args: [" + startMillis + ", " + endMillis + "]");
-            
-            cursor = getContext().getContentResolver().query(
-                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                projection,
-                selection,
-                selectionArgs,
-                MediaStore.Images.Media.DATE_TAKEN + " DESC"
-            );
-            
-            if (cursor != null) {
-                photoCount = cursor.getCount();
-                Log.d("EventPhotoPicker", "Found " + photoCount + " photos using DATE_TAKEN");
-                cursor.close();
-            }
-        } catch (Exception e) {
-            Log.e("EventPhotoPicker", "Error with DATE_TAKEN query: " + e.getMessage());
-            if (cursor != null) cursor.close();
-        }
+        Log.d("EventPhotoPicker", "Event range: " + startMillis + " to " + endMillis +
+              " (" + new Date(startMillis) + " to " + new Date(endMillis) + ")");
         
-        // If no photos found with DATE_TAKEN, try DATE_ADDED
-        if (photoCount == 0) {
-            try {
-                Log.d("EventPhotoPicker", "--- Querying with DATE_ADDED filter ---");
-                String selection = MediaStore.Images.Media.DATE_ADDED + " >= ? AND " + 
-                                  MediaStore.Images.Media.DATE_ADDED + " <= ?";
-                String[] selectionArgs = {
-                    String.valueOf(startSeconds),
-                    String.valueOf(endSeconds)
-                };
-                
-                Log.d("EventPhotoPicker", "DATE_ADDED query: " + selection);
-                Log.d("EventPhotoPicker", "Args: [" + startSeconds + ", " + endSeconds + "]");
-                
-                cursor = getContext().getContentResolver().query(
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    projection,
-                    selection,
-                    selectionArgs,
-                    MediaStore.Images.Media.DATE_ADDED + " DESC"
-                );
-                
-                if (cursor != null) {
-                    photoCount = cursor.getCount();
-                    Log.d("EventPhotoPicker", "Found " + photoCount + " photos using DATE_ADDED");
-                    cursor.close();
-                }
-            } catch (Exception e) {
-                Log.e("EventPhotoPicker", "Error with DATE_ADDED query: " + e.getMessage());
-                if (cursor != null) cursor.close();
-            }
+        MediaTimeline timeline = MediaTimeline.getInstance(getContext());
+        MediaTimeline.Snapshot snapshot = timeline.getSnapshot();
+        if (snapshot == null) {
+            Log.d("EventPhotoPicker", "Media timeline still loading - photo count will be logged when ready");
+            timeline.whenLoaded().thenAccept(loaded -> logPhotoCount(loaded, startMillis, endMillis));
+            return -1;
         }
-        
-        // If still no photos, try a very broad range for debugging
-        if (photoCount == 0) {
-            try {
-                Log.d("EventPhotoPicker", "--- Trying broad range for debugging ---");
-                long now = System.currentTimeMillis();
-                long dayBefore = now - (24 * 60 * 60 * 1000); // 24 hours ago
-                
-                String selection = MediaStore.Images.Media.DATE_TAKEN + " >= ?";
-                String[] selectionArgs = { String.valueOf(dayBefore) };
-                
-                Log.d("EventPhotoPicker", "Broad query: photos taken in last 24 hours");
-                
-                cursor = getContext().getContentResolver().query(
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    projection,
-                    selection,
-                    selectionArgs,
-                    MediaStore.Images.Media.DATE_TAKEN + " DESC"
-                );
-                
-                if (cursor != null) {
-                    int recentCount = cursor.getCount();
-                    Log.d("EventPhotoPicker", "Photos taken in last 24 hours: " + recentCount);
-                    cursor.close();
-                }
-            } catch (Exception e) {
-                Log.e("EventPhotoPicker", "Error with broad query: " + e.getMessage());
-                if (cursor != null) cursor.close();
-            }
+        return logPhotoCount(snapshot, startMillis, endMillis);
+    }
+    
+    private int logPhotoCount(MediaTimeline.Snapshot timeline, long startMillis, long endMillis) {
+        int photoCount = timeline.countInRange(startMillis, endMillis);
+        Log.d("EventPhotoPicker", "Photos found in date range: " + photoCount + " of " + timeline.size() + " on device");
+        
+        if (timeline.size() == 0) {
+            Log.d("EventPhotoPicker", "No photos found on device - possible permission issue!");
+            Log.d("EventPhotoPicker", "Check if READ_EXTERNAL_STORAGE or READ_MEDIA_IMAGES permission is granted");
+        } else if (photoCount == 0) {
+            Log.w("EventPhotoPicker", "No photos found in the event date range");
+            Log.w("EventPhotoPicker", "This might be normal if no photos were taken during the event");
         }
-        
-        Log.d("EventPhotoPicker", "=== END PHOTO FILTERING DEBUG ===");
         return photoCount;
     }
 
@@ -526,6 +386,8 @@ public class EventPhotoPickerPlugin extends Plugin {
         lastBridge = getBridge(); // Store bridge reference for activity access
         jwtTokenManager = JwtTokenManager.getInstance(getContext());
         duplicateDetector = new EnhancedDuplicateDetector(getContext());
+        // Warm the shared media timeline so event photo counts don't need a MediaStore query
+        MediaTimeline.getInstance(getContext()).start();
         Log.d("EventPhotoPicker", "🔥 EventPhotoPicker Plugin Loading with centralized JWT manager and enhanced duplicate detection");
     }
 
@@ -653,12 +515,6 @@ public class EventPhotoPickerPlugin extends Plugin {
         
         // Get photo count in range for debugging
         int photoCount = getPhotosInDateRange(startMillis, endMillis);
-        Log.d("EventPhotoPicker", "Photos found in date range: " + photoCount);
-        
-        if (photoCount == 0) {
-            Log.w("EventPhotoPicker", "No photos found in the event date range");
-            Log.w("EventPhotoPicker", "This might be normal if no photos were taken during the event");
-        }
         
         // JWT token logic commented out - only needed during upload flow, not photo selection
         // Log.d("EventPhotoPicker", "🔄 Getting fresh JWT token via centralized manager...");
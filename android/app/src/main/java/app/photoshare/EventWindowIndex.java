@@ -0,0 +1,136 @@
+package app.photoshare;
+
+import java.util.Arrays;
+
+/**
+ * Stabbing-query index over event date windows (inclusive [start, end] in epoch millis)
+ * Windows are sorted by start time with a running maximum of end times, so finding the
+ * events that contain a timestamp is a binary search plus a backwards walk that stops as
+ * soon as no earlier window can reach the timestamp.
+ * Plain Java (no Android types), covered on the JVM by EventWindowIndexTest.
+ */
+public class EventWindowIndex {
+    private final long[] starts;        // Sorted ascending
+    private final long[] ends;          // Parallel to starts
+    private final int[] eventIndexes;   // Parallel to starts: caller's index for each window
+    private final long[] maxEndUpTo;    // maxEndUpTo[i] = max(ends[0..i])
+    private final long[] mergedWindows; // Disjoint {start, end} pairs covering every window
+
+    /**
+     * @param startTimes Window start per event (epoch millis, inclusive)
+     * @param endTimes Window end per event (epoch millis, inclusive), same order
+     */
+    public EventWindowIndex(long[] startTimes, long[] endTimes) {
+        if (startTimes.length != endTimes.length) {
+            throw new IllegalArgumentException("Expected one end time per start time");
+        }
+        int count = startTimes.length;
+
+        // Order windows by start time (ties by event index)
+        long[][] order = new long[count][];
+        for (int i = 0; i < count; i++) {
+            order[i] = new long[] { startTimes[i], i };
+        }
+        Arrays.sort(order, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        starts = new long[count];
+        ends = new long[count];
+        eventIndexes = new int[count];
+        maxEndUpTo = new long[count];
+        long[] merged = new long[count * 2];
+        int mergedCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            int eventIndex = (int) order[i][1];
+            starts[i] = startTimes[eventIndex];
+            ends[i] = endTimes[eventIndex];
+            eventIndexes[i] = eventIndex;
+            maxEndUpTo[i] = i == 0 ? ends[i] : Math.max(maxEndUpTo[i - 1], ends[i]);
+
+            // Sweep: extend the current merged window while windows overlap or touch
+            if (mergedCount > 0 && starts[i] <= merged[mergedCount * 2 - 1] + 1) {
+                merged[mergedCount * 2 - 1] = Math.max(merged[mergedCount * 2 - 1], ends[i]);
+            } else {
+                merged[mergedCount * 2] = starts[i];
+                merged[mergedCount * 2 + 1] = ends[i];
+                mergedCount++;
+            }
+        }
+        mergedWindows = Arrays.copyOf(merged, mergedCount * 2);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * @return Earliest window start, or Long.MAX_VALUE if there are no windows
+     */
+    public long getMinStart() {
+        return starts.length > 0 ? starts[0] : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return Latest window end, or Long.MIN_VALUE if there are no windows
+     */
+    public long getMaxEnd() {
+        return starts.length > 0 ? maxEndUpTo[starts.length - 1] : Long.MIN_VALUE;
+    }
+
+    /**
+     * @return Number of disjoint windows after merging overlapping or touching ones
+     */
+    public int getMergedWindowCount() {
+        return mergedWindows.length / 2;
+    }
+
+    public long getMergedWindowStart(int window) {
+        return mergedWindows[window * 2];
+    }
+
+    public long getMergedWindowEnd(int window) {
+        return mergedWindows[window * 2 + 1];
+    }
+
+    /**
+     * Find every event whose window contains a timestamp
+     * @param time Timestamp (epoch millis)
+     * @param out Receives the caller's event indexes; must hold size() entries
+     * @return Number of indexes written to out (in no particular order)
+     */
+    public int findContaining(long time, int[] out) {
+        int found = 0;
+        // Windows starting after time can't contain it; walk the rest backwards while one could still reach it
+        for (int i = upperBound(time) - 1; i >= 0 && maxEndUpTo[i] >= time; i--) {
+            if (ends[i] >= time) {
+                out[found++] = eventIndexes[i];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Check whether any event window contains a timestamp
+     */
+    public boolean containsAny(long time) {
+        int i = upperBound(time) - 1;
+        return i >= 0 && maxEndUpTo[i] >= time;
+    }
+
+    /**
+     * Index of the first window starting after time
+     */
+    private int upperBound(long time) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
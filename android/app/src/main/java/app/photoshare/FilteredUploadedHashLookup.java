@@ -0,0 +1,65 @@
+package app.photoshare;
+
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Uploaded-hash lookup answered by a persisted Bloom filter first
+ * The filter is kept in step with the server list by the per-pass sync, so misses are
+ * definite "not uploaded" answers. The exact hash set is only loaded, once, the first time
+ * the filter reports a possible match.
+ */
+public class FilteredUploadedHashLookup implements UploadedHashLookup {
+    private static final String TAG = "FilteredHashLookup";
+
+    private final UploadedHashBloomFilter filter;
+    private final Callable<Sha256HashSet> exactLoader;
+    private Sha256HashSet exactHashes;
+    private boolean exactLoadFailed = false;
+    private boolean guessedHit = false;
+
+    /**
+     * @param filter Filter built from the event's uploaded hashes
+     * @param exactLoader Loads the exact set on the first filter hit
+     */
+    public FilteredUploadedHashLookup(UploadedHashBloomFilter filter, Callable<Sha256HashSet> exactLoader) {
+        this.filter = filter;
+        this.exactLoader = exactLoader;
+    }
+
+    @Override
+    public boolean mayContainFileSize(long fileSize) {
+        return filter.mightContainFileSize(fileSize);
+    }
+
+    @Override
+    public synchronized boolean contains(CharSequence hex) {
+        if (!filter.mightContain(hex)) {
+            return false;
+        }
+
+        if (exactHashes == null && !exactLoadFailed) {
+            try {
+                Log.d(TAG, "🌸 Filter hit, loading exact uploaded hashes");
+                exactHashes = exactLoader.call();
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Failed to load exact uploaded hashes: " + e.getMessage());
+                exactLoadFailed = true;
+            }
+        }
+
+        // Without the exact list, treat a hit as uploaded; isVerified() keeps the event's
+        // checkpoint in place so the photo is checked again on the next pass
+        if (exactHashes == null) {
+            guessedHit = true;
+            return true;
+        }
+        return exactHashes.contains(hex);
+    }
+
+    @Override
+    public synchronized boolean isVerified() {
+        return !guessedHit;
+    }
+}
@@ -0,0 +1,154 @@
+package app.photoshare;
+
+/**
+ * Allocation-free helpers for converting between hex hash strings and primitive values
+ * Kept free of Android dependencies so hot hash paths can be exercised on the JVM
+ */
+public final class HashCodec {
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+    private static final int SHA256_HEX_LENGTH = 64;
+
+    private HashCodec() {}
+
+    /**
+     * Convert a single hex character to its value
+     * @param c Hex character (0-9, a-f, A-F)
+     * @return Value 0-15, or -1 if the character isn't hex
+     */
+    public static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * Parse up to 16 hex characters as an unsigned 64-bit value (e.g. a dHash)
+     * @param hex Hex string
+     * @return Parsed value
+     * @throws NumberFormatException if the string is empty, too long or not hex
+     */
+    public static long parseHex64(CharSequence hex) {
+        int length = hex.length();
+        if (length == 0 || length > 16) {
+            throw new NumberFormatException("Expected 1-16 hex characters, got " + length);
+        }
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = hexDigit(hex.charAt(i));
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex character at " + i);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parse exactly 16 hex characters starting at offset as an unsigned 64-bit value
+     * Callers validate the characters first (see Sha256HashSet), so invalid digits aren't checked here
+     * @param hex Hex string
+     * @param offset Index of the first character
+     * @return Parsed value
+     */
+    public static long parseHexLong(CharSequence hex, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            value = (value << 4) | hexDigit(hex.charAt(i));
+        }
+        return value;
+    }
+
+    /**
+     * Check that a value starts with a 64-character SHA-256 hex hash, optionally followed by "_..."
+     * (the server's "sha256hash_fileSize_dateTaken" entry format)
+     */
+    public static boolean isSha256Prefix(CharSequence value) {
+        int length = value.length();
+        if (length < SHA256_HEX_LENGTH || (length > SHA256_HEX_LENGTH && value.charAt(SHA256_HEX_LENGTH) != '_')) {
+            return false;
+        }
+        for (int i = 0; i < SHA256_HEX_LENGTH; i++) {
+            if (hexDigit(value.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse the decimal size field that follows the hash in a server entry ("hash_size_dateTaken")
+     * @return Size in bytes, or -1 if the entry has no usable size
+     */
+    public static long parseUploadedEntryFileSize(CharSequence entry) {
+        int length = entry.length();
+        int start = SHA256_HEX_LENGTH + 1;
+        if (length <= start) {
+            return -1;
+        }
+
+        long fileSize = 0;
+        int i = start;
+        for (; i < length && entry.charAt(i) != '_'; i++) {
+            char c = entry.charAt(i);
+            if (c < '0' || c > '9' || fileSize > Long.MAX_VALUE / 10) {
+                return -1;
+            }
+            fileSize = fileSize * 10 + (c - '0');
+        }
+        return i > start ? fileSize : -1;
+    }
+
+    /**
+     * Read 8 bytes starting at offset as a big-endian long
+     */
+    public static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Convert raw bytes (e.g. a SHA-256 digest) to a lowercase hex string
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_CHARS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_CHARS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Count differing bits between two 64-bit hashes
+     */
+    public static int hammingDistance(long hash1, long hash2) {
+        return Long.bitCount(hash1 ^ hash2);
+    }
+
+    /**
+     * Count differing bits between two hex perceptual hashes of the same length (up to 16 characters)
+     * @return Hamming distance, or Integer.MAX_VALUE if the hashes are missing or of different lengths
+     * @throws NumberFormatException if either hash isn't valid hex
+     */
+    public static int hammingDistance(CharSequence hex1, CharSequence hex2) {
+        if (hex1 == null || hex2 == null || hex1.length() != hex2.length()) {
+            return Integer.MAX_VALUE;
+        }
+        return hammingDistance(parseHex64(hex1), parseHex64(hex2));
+    }
+
+    /**
+     * Convert a Hamming distance between two 64-bit perceptual hashes to a similarity
+     * @param hammingDistance Hamming distance (0-64)
+     * @return Similarity percentage (0.0 - 1.0)
+     */
+    public static double similarity(int hammingDistance) {
+        // 64 bits total, so similarity = (64 - distance) / 64
+        return (64.0 - hammingDistance) / 64.0;
+    }
+}
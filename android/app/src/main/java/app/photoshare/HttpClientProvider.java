@@ -0,0 +1,92 @@
+package app.photoshare;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide OkHttp clients
+ * Every client shares one ConnectionPool and Dispatcher, so calls to the Supabase host reuse
+ * warm TCP+TLS (and HTTP/2) connections instead of handshaking per request. Use cases only
+ * differ in timeouts, derived with newBuilder() from the shared base client.
+ */
+public final class HttpClientProvider {
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+
+    // Metrics hook; NONE until the app installs a factory
+    private static volatile EventListener.Factory eventListenerFactory = call -> EventListener.NONE;
+
+    private HttpClientProvider() {}
+
+    // Clients are built on first use
+    private static class Holder {
+        static final OkHttpClient BASE = createBaseClient();
+
+        static final OkHttpClient API = BASE.newBuilder()
+            .connectTimeout(30, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .writeTimeout(30, TimeUnit.SECONDS)
+            .build();
+
+        static final OkHttpClient UPLOAD = BASE.newBuilder()
+            .connectTimeout(30, TimeUnit.SECONDS)
+            .readTimeout(300, TimeUnit.SECONDS) // 5 minutes for large photos
+            .writeTimeout(300, TimeUnit.SECONDS)
+            .build();
+
+        static final OkHttpClient DOWNLOAD = BASE.newBuilder()
+            .connectTimeout(30, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * Client for small JSON API calls
+     */
+    public static OkHttpClient api() {
+        return Holder.API;
+    }
+
+    /**
+     * Client for photo uploads (long write and read timeouts)
+     */
+    public static OkHttpClient upload() {
+        return Holder.UPLOAD;
+    }
+
+    /**
+     * Client for photo downloads
+     */
+    public static OkHttpClient download() {
+        return Holder.DOWNLOAD;
+    }
+
+    /**
+     * Install a listener factory for connection and call metrics
+     * Applies to calls started afterwards, on every shared client.
+     */
+    public static void setEventListenerFactory(EventListener.Factory factory) {
+        eventListenerFactory = factory != null ? factory : call -> EventListener.NONE;
+    }
+
+    private static OkHttpClient createBaseClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        // Uploads and API calls all go to the same Supabase host
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        return new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .dispatcher(dispatcher)
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .retryOnConnectionFailure(true)
+            .eventListenerFactory(call -> eventListenerFactory.create(call))
+            .build();
+    }
+}
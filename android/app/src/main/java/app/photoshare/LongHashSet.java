@@ -0,0 +1,92 @@
+package app.photoshare;
+
+/**
+ * Minimal open-addressing set of positive longs (e.g. file sizes) without boxing
+ * Zero and negative values are treated as "unknown" and never stored.
+ */
+public class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private int mask;
+    private int size = 0;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of values expected, used to presize the table
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1);
+    }
+
+    /**
+     * @return true if the value was positive and not already present
+     */
+    public boolean add(long value) {
+        if (value <= 0) {
+            return false;
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+
+        int slot = slotFor(value);
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value <= 0) {
+            return false;
+        }
+        int slot = slotFor(value);
+        while (table[slot] != 0) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    private int slotFor(long value) {
+        // File sizes cluster, so mix the bits before masking
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldTable = table;
+        allocate(newCapacity);
+        size = 0;
+        for (long value : oldTable) {
+            if (value != 0) {
+                add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package app.photoshare;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+/**
+ * Persistent, deduplicated journal of MediaStore image IDs reported by ContentObserver
+ * Each ID is stored once no matter how many change notifications arrive for it, and entries
+ * survive process death until the upload pipeline consumes them in batches.
+ */
+public class MediaChangeJournal extends SQLiteOpenHelper {
+    private static final String TAG = "MediaChangeJournal";
+    private static final String DATABASE_NAME = "media_change_journal.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_CHANGES = "media_changes";
+    private static final String COLUMN_MEDIA_ID = "media_id";
+    private static final String COLUMN_RECORDED_AT = "recorded_at";
+
+    private static MediaChangeJournal instance;
+
+    private MediaChangeJournal(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    public static synchronized MediaChangeJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new MediaChangeJournal(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_CHANGES + " (" +
+            COLUMN_MEDIA_ID + " INTEGER PRIMARY KEY, " +
+            COLUMN_RECORDED_AT + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_" + TABLE_CHANGES + "_" + COLUMN_RECORDED_AT +
+            " ON " + TABLE_CHANGES + " (" + COLUMN_RECORDED_AT + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Pending changes are also found by the next full scan, so dropping them is safe
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_CHANGES);
+        onCreate(db);
+    }
+
+    /**
+     * Record a changed media ID (no-op if it's already waiting in the journal)
+     */
+    public void record(long mediaId) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_MEDIA_ID, mediaId);
+            values.put(COLUMN_RECORDED_AT, System.currentTimeMillis());
+            getWritableDatabase().insertWithOnConflict(TABLE_CHANGES, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to journal media " + mediaId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get journaled IDs without removing them, one page at a time
+     * @param afterId Return only IDs greater than this (the last ID of the previous page, or -1)
+     * @param limit Maximum number of IDs to return
+     * @return IDs in ascending order (empty once past the last entry)
+     */
+    public long[] peekBatch(long afterId, int limit) {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + COLUMN_MEDIA_ID + " FROM " + TABLE_CHANGES +
+                " WHERE " + COLUMN_MEDIA_ID + " > ?" +
+                " ORDER BY " + COLUMN_MEDIA_ID + " LIMIT " + limit, new String[] { String.valueOf(afterId) })) {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return ids;
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to read media change journal: " + e.getMessage());
+            return new long[0];
+        }
+    }
+
+    /**
+     * Remove consumed IDs from the journal
+     */
+    public void remove(long[] mediaIds) {
+        if (mediaIds.length == 0) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (long mediaId : mediaIds) {
+                db.delete(TABLE_CHANGES, COLUMN_MEDIA_ID + " = ?", new String[] { String.valueOf(mediaId) });
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to remove " + mediaIds.length + " journal entries: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Remove entries recorded before a time (covered by a full scan that started after them)
+     */
+    public void removeRecordedBefore(long timeMillis) {
+        try {
+            getWritableDatabase().delete(TABLE_CHANGES, COLUMN_RECORDED_AT + " < ?",
+                new String[] { String.valueOf(timeMillis) });
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to trim media change journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get number of journaled IDs
+     */
+    public long size() {
+        try {
+            return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_CHANGES);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to count journal entries: " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package app.photoshare;
+
+/**
+ * Lightweight snapshot of a MediaStore image row
+ * Drained from the cursor up front so hashing can run off the cursor thread
+ */
+public class MediaRecord {
+    public final long id;
+    public final String filePath;
+    public final long dateTaken;
+    public final long dateModified;     // MediaStore DATE_MODIFIED (seconds)
+    public final long size;
+
+    public MediaRecord(long id, String filePath, long dateTaken, long dateModified, long size) {
+        this.id = id;
+        this.filePath = filePath;
+        this.dateTaken = dateTaken;
+        this.dateModified = dateModified;
+        this.size = size;
+    }
+
+    /**
+     * Get the file name portion of the record's path
+     */
+    public String getFileName() {
+        return filePath.substring(filePath.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "MediaRecord{" +
+                "id=" + id +
+                ", filePath='" + filePath + '\'' +
+                ", dateTaken=" + dateTaken +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package app.photoshare;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.Log;
+
+/**
+ * Persistent "processed up to here" positions in MediaStore, one per scan key (e.g. user + event)
+ * On API 30+ positions are MediaStore generations, compared against GENERATION_ADDED or
+ * GENERATION_MODIFIED. Generations are only comparable within one MediaStore version, so
+ * stored positions are dropped when the volume is reset (version changes). Older APIs fall
+ * back to DATE_ADDED seconds.
+ */
+public class MediaStoreCheckpoints {
+    private static final String TAG = "MediaStoreCheckpoints";
+    private static final String PREFS_NAME = "media_store_checkpoints";
+    private static final String KEY_VERSION = "media_store_version";
+    private static final String DATE_ADDED_VERSION = "date_added";
+
+    // DATE_ADDED has one-second resolution; rescanning the last seconds is cheap, missing a photo isn't
+    private static final long DATE_ADDED_SAFETY_SECONDS = 2;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+
+    public MediaStoreCheckpoints(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * @return true if positions are MediaStore generations (API 30+)
+     */
+    public static boolean usesGenerations() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+    }
+
+    /**
+     * Column holding a row's position for rows added or modified after a checkpoint
+     */
+    public static String getModifiedColumn() {
+        return usesGenerations() ? MediaStore.MediaColumns.GENERATION_MODIFIED : MediaStore.MediaColumns.DATE_ADDED;
+    }
+
+    /**
+     * Column holding a row's position for rows added after a checkpoint
+     */
+    public static String getAddedColumn() {
+        return usesGenerations() ? MediaStore.MediaColumns.GENERATION_ADDED : MediaStore.MediaColumns.DATE_ADDED;
+    }
+
+    /**
+     * Current MediaStore position; capture it before querying so rows that change during the
+     * scan are picked up next time
+     */
+    public long currentPosition() {
+        if (usesGenerations()) {
+            return MediaStore.getGeneration(context, MediaStore.VOLUME_EXTERNAL);
+        }
+        return System.currentTimeMillis() / 1000 - DATE_ADDED_SAFETY_SECONDS;
+    }
+
+    /**
+     * @return Stored position for the key, or -1 if there is none or MediaStore was reset since
+     */
+    public synchronized long get(String key) {
+        if (!currentVersion().equals(prefs.getString(KEY_VERSION, null))) {
+            return -1;
+        }
+        return prefs.getLong(key, -1);
+    }
+
+    /**
+     * Store a position for the key
+     */
+    public synchronized void put(String key, long position) {
+        String version = currentVersion();
+        SharedPreferences.Editor editor = prefs.edit();
+        if (!version.equals(prefs.getString(KEY_VERSION, null))) {
+            // Positions from another MediaStore version are meaningless now
+            Log.d(TAG, "🔄 MediaStore version changed to " + version + ", clearing stored positions");
+            editor.clear().putString(KEY_VERSION, version);
+        }
+        editor.putLong(key, position).apply();
+    }
+
+    /**
+     * Identifier of the current MediaStore version; positions from another version aren't comparable
+     */
+    public String currentVersion() {
+        if (usesGenerations()) {
+            return MediaStore.getVersion(context, MediaStore.VOLUME_EXTERNAL);
+        }
+        return DATE_ADDED_VERSION;
+    }
+}
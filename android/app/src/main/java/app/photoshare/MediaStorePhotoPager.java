@@ -0,0 +1,201 @@
+package app.photoshare;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pages through the photos taken in a date range, newest first, off the main thread
+ * Uses keyset pagination on (DATE_TAKEN, _ID) so each page is a small indexed query that
+ * doesn't depend on earlier pages staying put, unlike OFFSET. Pages are delivered on the
+ * main thread; only one page is loaded at a time.
+ */
+public class MediaStorePhotoPager {
+    private static final String TAG = "MediaStorePhotoPager";
+
+    private static final String[] PROJECTION = {
+        MediaStore.Images.Media._ID,
+        MediaStore.Images.Media.DATA,
+        MediaStore.Images.Media.DATE_TAKEN,
+        MediaStore.Images.Media.DATE_ADDED,
+        MediaStore.Images.Media.DISPLAY_NAME,
+        MediaStore.Images.Media.SIZE,
+        MediaStore.Images.Media.WIDTH,
+        MediaStore.Images.Media.HEIGHT
+    };
+
+    private static final String SORT_ORDER =
+        MediaStore.Images.Media.DATE_TAKEN + " DESC, " + MediaStore.Images.Media._ID + " DESC";
+
+    public interface PageCallback {
+        /**
+         * @param photos Photos in this page (newest first)
+         * @param hasMore Whether another page may follow
+         */
+        void onPageLoaded(List<PhotoItem> photos, boolean hasMore);
+        void onError(Exception error);
+    }
+
+    private final ContentResolver contentResolver;
+    private final long startMillis;
+    private final long endMillis;
+    private final int pageSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Keyset position: last row delivered (main thread only)
+    private long lastDateTaken = Long.MAX_VALUE;
+    private long lastId = Long.MAX_VALUE;
+    private boolean loading = false;
+    private boolean hasMore = true;
+    private volatile boolean closed = false;
+
+    /**
+     * @param startMillis Range start (DATE_TAKEN, inclusive)
+     * @param endMillis Range end (DATE_TAKEN, inclusive)
+     * @param pageSize Rows per page
+     */
+    public MediaStorePhotoPager(Context context, long startMillis, long endMillis, int pageSize) {
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.pageSize = pageSize;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Load the page after the last delivered one (main thread)
+     * Does nothing while a page is loading or once the range is exhausted.
+     */
+    public void loadNextPage(PageCallback callback) {
+        if (loading || !hasMore || closed) {
+            return;
+        }
+        loading = true;
+
+        final long afterDateTaken = lastDateTaken;
+        final long afterId = lastId;
+        executor.execute(() -> {
+            try {
+                List<PhotoItem> photos = queryPage(afterDateTaken, afterId);
+                mainHandler.post(() -> {
+                    if (closed) {
+                        return;
+                    }
+                    loading = false;
+                    hasMore = photos.size() == pageSize;
+                    if (!photos.isEmpty()) {
+                        PhotoItem last = photos.get(photos.size() - 1);
+                        lastDateTaken = last.getDateTaken();
+                        lastId = last.getId();
+                    }
+                    callback.onPageLoaded(photos, hasMore);
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Failed to load photo page: " + e.getMessage(), e);
+                mainHandler.post(() -> {
+                    if (closed) {
+                        return;
+                    }
+                    loading = false;
+                    hasMore = false;
+                    callback.onError(e);
+                });
+            }
+        });
+    }
+
+    /**
+     * Stop loading; pending pages are dropped
+     */
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+    }
+
+    private List<PhotoItem> queryPage(long afterDateTaken, long afterId) {
+        String selection = MediaStore.Images.Media.DATE_TAKEN + " >= ? AND " +
+            MediaStore.Images.Media.DATE_TAKEN + " <= ?";
+        String[] selectionArgs;
+        if (afterDateTaken == Long.MAX_VALUE) {
+            selectionArgs = new String[] { String.valueOf(startMillis), String.valueOf(endMillis) };
+        } else {
+            // Rows strictly after the last delivered one in (DATE_TAKEN DESC, _ID DESC) order
+            selection += " AND (" + MediaStore.Images.Media.DATE_TAKEN + " < ? OR (" +
+                MediaStore.Images.Media.DATE_TAKEN + " = ? AND " + MediaStore.Images.Media._ID + " < ?))";
+            selectionArgs = new String[] {
+                String.valueOf(startMillis),
+                String.valueOf(endMillis),
+                String.valueOf(afterDateTaken),
+                String.valueOf(afterDateTaken),
+                String.valueOf(afterId)
+            };
+        }
+
+        List<PhotoItem> photos = new ArrayList<>(pageSize);
+        try (Cursor cursor = query(selection, selectionArgs)) {
+            if (cursor == null || !cursor.moveToFirst()) {
+                return photos;
+            }
+
+            int idIndex = cursor.getColumnIndex(MediaStore.Images.Media._ID);
+            int dataIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATA);
+            int dateTakenIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_TAKEN);
+            int dateAddedIndex = cursor.getColumnIndex(MediaStore.Images.Media.DATE_ADDED);
+            int nameIndex = cursor.getColumnIndex(MediaStore.Images.Media.DISPLAY_NAME);
+            int sizeIndex = cursor.getColumnIndex(MediaStore.Images.Media.SIZE);
+            int widthIndex = cursor.getColumnIndex(MediaStore.Images.Media.WIDTH);
+            int heightIndex = cursor.getColumnIndex(MediaStore.Images.Media.HEIGHT);
+
+            do {
+                long id = cursor.getLong(idIndex);
+                Uri uri = Uri.withAppendedPath(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, String.valueOf(id));
+                photos.add(new PhotoItem(
+                    id,
+                    uri,
+                    cursor.getString(dataIndex),
+                    cursor.getLong(dateTakenIndex),
+                    cursor.getLong(dateAddedIndex),
+                    cursor.getString(nameIndex),
+                    cursor.getLong(sizeIndex),
+                    cursor.getInt(widthIndex),
+                    cursor.getInt(heightIndex)
+                ));
+            } while (cursor.moveToNext() && photos.size() < pageSize);
+        }
+        return photos;
+    }
+
+    private Cursor query(String selection, String[] selectionArgs) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            Bundle queryArgs = new Bundle();
+            queryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection);
+            queryArgs.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, selectionArgs);
+            queryArgs.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, SORT_ORDER);
+            queryArgs.putInt(ContentResolver.QUERY_ARG_LIMIT, pageSize);
+            return contentResolver.query(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, PROJECTION, queryArgs, null);
+        }
+        // Pre-O providers accept a LIMIT clause appended to the sort order
+        return contentResolver.query(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, PROJECTION,
+            selection, selectionArgs, SORT_ORDER + " LIMIT " + pageSize);
+    }
+}
@@ -0,0 +1,457 @@
+package app.photoshare;
+
+import android.Manifest;
+import android.content.ContentUris;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide, in-memory timeline of device photos: parallel primitive arrays of DATE_TAKEN,
+ * _ID and SIZE sorted by (DATE_TAKEN, _ID), so range counts and range lookups are two binary
+ * searches instead of a MediaStore query.
+ * Loaded once, then kept current from MediaStore change notifications: changed rows are found
+ * with a MediaStoreCheckpoints delta query, notified IDs that no longer exist are dropped, and
+ * the result is merged into a new immutable Snapshot. Photos without DATE_TAKEN aren't included,
+ * matching the DATE_TAKEN range queries elsewhere in the app.
+ * For UI counts only: it isn't loaded until photo permission is granted and can lag behind
+ * MediaStore, so scans must never skip ranges or move checkpoints based on it.
+ */
+public class MediaTimeline {
+    private static final String TAG = "MediaTimeline";
+
+    // Coalesce bursts of notifications (e.g. a camera burst or a bulk import) into one refresh
+    private static final long REFRESH_DEBOUNCE_MS = 1000;
+    private static final int ID_BATCH_SIZE = 500;
+
+    private static MediaTimeline instance;
+
+    /**
+     * Immutable view of the timeline; safe to read from any thread
+     */
+    public static final class Snapshot {
+        private final long[] dateTaken;
+        private final long[] ids;
+        private final long[] sizes;
+        private final long position;
+
+        Snapshot(long[] dateTaken, long[] ids, long[] sizes, long position) {
+            this.dateTaken = dateTaken;
+            this.ids = ids;
+            this.sizes = sizes;
+            this.position = position;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * MediaStoreCheckpoints position captured before the last refresh; every row at or
+         * before it is reflected in this snapshot
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        public long getDateTaken(int index) {
+            return dateTaken[index];
+        }
+
+        public long getId(int index) {
+            return ids[index];
+        }
+
+        public long getSize(int index) {
+            return sizes[index];
+        }
+
+        /**
+         * Index of the first photo taken at or after time
+         */
+        public int lowerBound(long time) {
+            int low = 0;
+            int high = dateTaken.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dateTaken[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Index of the first photo taken after time
+         */
+        public int upperBound(long time) {
+            int low = 0;
+            int high = dateTaken.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dateTaken[mid] <= time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Count photos taken in [startMillis, endMillis]
+         */
+        public int countInRange(long startMillis, long endMillis) {
+            if (endMillis < startMillis) {
+                return 0;
+            }
+            return upperBound(endMillis) - lowerBound(startMillis);
+        }
+
+        /**
+         * MediaStore IDs of photos taken in [startMillis, endMillis], oldest first
+         */
+        public long[] getIdsInRange(long startMillis, long endMillis) {
+            if (endMillis < startMillis) {
+                return new long[0];
+            }
+            return Arrays.copyOfRange(ids, lowerBound(startMillis), upperBound(endMillis));
+        }
+    }
+
+    private final Context context;
+    private final MediaStoreCheckpoints checkpoints;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CompletableFuture<Snapshot> firstLoad = new CompletableFuture<>();
+    private final Runnable refreshRunnable = () -> executor.execute(this::refresh);
+    private final ContentObserver observer;
+
+    private volatile Snapshot snapshot;
+    private String snapshotVersion;  // Executor thread only
+
+    // Notified IDs waiting for the next refresh (guarded by this)
+    private LongHashSet pendingIds = new LongHashSet();
+    private boolean fullReloadPending = false;
+    private boolean started = false;
+
+    private MediaTimeline(Context context) {
+        this.context = context.getApplicationContext();
+        this.checkpoints = new MediaStoreCheckpoints(this.context);
+        this.observer = new ContentObserver(mainHandler) {
+            @Override
+            public void onChange(boolean selfChange, Uri uri) {
+                onMediaChanged(uri);
+            }
+        };
+    }
+
+    public static synchronized MediaTimeline getInstance(Context context) {
+        if (instance == null) {
+            instance = new MediaTimeline(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Start watching MediaStore and load the timeline if it isn't loaded yet
+     * Safe to call repeatedly; a load that failed or was deferred (e.g. before permission was
+     * granted) is retried.
+     */
+    public void start() {
+        synchronized (this) {
+            if (!started) {
+                started = true;
+                context.getContentResolver().registerContentObserver(
+                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI, true, observer);
+            }
+        }
+        if (snapshot == null) {
+            executor.execute(this::refresh);
+        }
+    }
+
+    /**
+     * @return Current snapshot, or null if the timeline hasn't loaded yet (starts loading it)
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            start();
+        }
+        return current;
+    }
+
+    /**
+     * @return Future completing with the first loaded snapshot (on the timeline's thread)
+     */
+    public CompletableFuture<Snapshot> whenLoaded() {
+        start();
+        return firstLoad;
+    }
+
+    private void onMediaChanged(Uri uri) {
+        long mediaId = -1;
+        if (uri != null) {
+            try {
+                mediaId = ContentUris.parseId(uri);
+            } catch (NumberFormatException | UnsupportedOperationException e) {
+                // Collection URI
+            }
+        }
+        synchronized (this) {
+            if (mediaId > 0) {
+                pendingIds.add(mediaId);
+            } else {
+                // Without an ID a deletion can't be pinpointed
+                fullReloadPending = true;
+            }
+        }
+        mainHandler.removeCallbacks(refreshRunnable);
+        mainHandler.postDelayed(refreshRunnable, REFRESH_DEBOUNCE_MS);
+    }
+
+    /**
+     * Bring the snapshot up to date (executor thread)
+     */
+    private void refresh() {
+        LongHashSet notifiedIds;
+        boolean fullReload;
+        synchronized (this) {
+            notifiedIds = pendingIds;
+            pendingIds = new LongHashSet();
+            fullReload = fullReloadPending;
+            fullReloadPending = false;
+        }
+
+        if (!hasReadPermission()) {
+            // Without permission MediaStore returns an empty cursor rather than failing; don't
+            // publish that as a real (empty) timeline. The next start() after the grant loads it
+            // (revoking a permission restarts the process, so a loaded snapshot was queried with it).
+            Log.d(TAG, "🔒 No photo permission yet, media timeline not loaded");
+            return;
+        }
+
+        try {
+            Snapshot current = snapshot;
+            String version = checkpoints.currentVersion();
+            if (current == null || fullReload || !version.equals(snapshotVersion)) {
+                reload(version);
+            } else {
+                applyChanges(current, notifiedIds);
+            }
+        } catch (Exception e) {
+            // Not loaded (or stale); the next notification or start() tries again
+            Log.e(TAG, "❌ Failed to refresh media timeline: " + e.getMessage(), e);
+            if (snapshot != null) {
+                synchronized (this) {
+                    fullReloadPending = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the snapshot with a full query (executor thread)
+     */
+    private void reload(String version) {
+        long position = checkpoints.currentPosition();
+        RowBuffer rows = new RowBuffer(1024);
+        try (Cursor cursor = context.getContentResolver().query(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                new String[] { MediaStore.Images.Media._ID, MediaStore.Images.Media.DATE_TAKEN, MediaStore.Images.Media.SIZE },
+                MediaStore.Images.Media.DATE_TAKEN + " > 0",
+                null,
+                MediaStore.Images.Media.DATE_TAKEN + " ASC, " + MediaStore.Images.Media._ID + " ASC")) {
+            if (cursor == null) {
+                throw new IllegalStateException("MediaStore query returned no cursor");
+            }
+            while (cursor.moveToNext()) {
+                rows.add(cursor.getLong(1), cursor.getLong(0), cursor.getLong(2));
+            }
+        }
+
+        publish(new Snapshot(rows.dateTaken(), rows.ids(), rows.sizes(), position), version);
+        Log.d(TAG, "📅 Loaded media timeline: " + rows.count + " photos");
+    }
+
+    /**
+     * Merge rows changed since the snapshot's position and drop notified rows that are gone
+     * (executor thread)
+     */
+    private void applyChanges(Snapshot current, LongHashSet notifiedIds) {
+        long position = checkpoints.currentPosition();
+        String positionColumn = MediaStoreCheckpoints.getModifiedColumn();
+
+        // Rows added or modified since the last refresh, in timeline order
+        RowBuffer changed = new RowBuffer(16);
+        LongHashSet removedIds = new LongHashSet();
+        try (Cursor cursor = context.getContentResolver().query(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                new String[] { MediaStore.Images.Media._ID, MediaStore.Images.Media.DATE_TAKEN, MediaStore.Images.Media.SIZE },
+                positionColumn + " > ?",
+                new String[] { String.valueOf(current.getPosition()) },
+                MediaStore.Images.Media.DATE_TAKEN + " ASC, " + MediaStore.Images.Media._ID + " ASC")) {
+            while (cursor != null && cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                long dateTaken = cursor.getLong(1);
+                if (dateTaken > 0) {
+                    changed.add(dateTaken, id, cursor.getLong(2));
+                } else {
+                    removedIds.add(id); // Lost its date; drop any stale entry
+                }
+            }
+        }
+
+        // Notified rows that weren't changed may have been deleted
+        LongHashSet changedIds = new LongHashSet(changed.count + removedIds.size());
+        for (int i = 0; i < changed.count; i++) {
+            changedIds.add(changed.ids[i]);
+        }
+        long[] toVerify = new long[notifiedIds.size()];
+        int verifyCount = 0;
+        for (int i = 0; i < current.size(); i++) {
+            long id = current.getId(i);
+            if (notifiedIds.contains(id) && !changedIds.contains(id)) {
+                toVerify[verifyCount++] = id;
+            }
+        }
+        for (int offset = 0; offset < verifyCount; offset += ID_BATCH_SIZE) {
+            int batchSize = Math.min(ID_BATCH_SIZE, verifyCount - offset);
+            LongHashSet existing = queryExistingIds(toVerify, offset, batchSize);
+            for (int i = offset; i < offset + batchSize; i++) {
+                if (!existing.contains(toVerify[i])) {
+                    removedIds.add(toVerify[i]);
+                }
+            }
+        }
+
+        if (changed.count == 0 && removedIds.size() == 0) {
+            if (position != current.getPosition()) {
+                snapshot = new Snapshot(current.dateTaken, current.ids, current.sizes, position);
+            }
+            return;
+        }
+
+        // Single merge pass: keep unchanged rows, interleave changed ones in (DATE_TAKEN, _ID) order
+        RowBuffer merged = new RowBuffer(current.size() + changed.count);
+        int j = 0;
+        for (int i = 0; i < current.size(); i++) {
+            long id = current.ids[i];
+            if (changedIds.contains(id) || removedIds.contains(id)) {
+                continue;
+            }
+            long dateTaken = current.dateTaken[i];
+            while (j < changed.count && (changed.dateTaken[j] < dateTaken
+                    || (changed.dateTaken[j] == dateTaken && changed.ids[j] < id))) {
+                merged.add(changed.dateTaken[j], changed.ids[j], changed.sizes[j]);
+                j++;
+            }
+            merged.add(dateTaken, id, current.sizes[i]);
+        }
+        for (; j < changed.count; j++) {
+            merged.add(changed.dateTaken[j], changed.ids[j], changed.sizes[j]);
+        }
+
+        publish(new Snapshot(merged.dateTaken(), merged.ids(), merged.sizes(), position), snapshotVersion);
+        Log.d(TAG, "📅 Media timeline updated: " + changed.count + " changed, " + removedIds.size() +
+              " removed, " + merged.count + " photos");
+    }
+
+    private LongHashSet queryExistingIds(long[] ids, int offset, int count) {
+        StringBuilder selection = new StringBuilder(MediaStore.Images.Media._ID + " IN (");
+        String[] selectionArgs = new String[count];
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ",?");
+            selectionArgs[i] = String.valueOf(ids[offset + i]);
+        }
+        selection.append(")");
+
+        LongHashSet existing = new LongHashSet(count);
+        try (Cursor cursor = context.getContentResolver().query(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                new String[] { MediaStore.Images.Media._ID },
+                selection.toString(),
+                selectionArgs,
+                null)) {
+            if (cursor == null) {
+                throw new IllegalStateException("MediaStore query returned no cursor");
+            }
+            while (cursor.moveToNext()) {
+                existing.add(cursor.getLong(0));
+            }
+        }
+        return existing;
+    }
+
+    private boolean hasReadPermission() {
+        String permission = Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+            ? Manifest.permission.READ_MEDIA_IMAGES
+            : Manifest.permission.READ_EXTERNAL_STORAGE;
+        return ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private void publish(Snapshot updated, String version) {
+        snapshotVersion = version;
+        snapshot = updated;
+        firstLoad.complete(updated);
+    }
+
+    /**
+     * Growable parallel arrays used while building a snapshot
+     */
+    private static class RowBuffer {
+        long[] dateTaken;
+        long[] ids;
+        long[] sizes;
+        int count = 0;
+
+        RowBuffer(int capacity) {
+            capacity = Math.max(capacity, 16);
+            dateTaken = new long[capacity];
+            ids = new long[capacity];
+            sizes = new long[capacity];
+        }
+
+        void add(long time, long id, long size) {
+            if (count == ids.length) {
+                int capacity = count * 2;
+                dateTaken = Arrays.copyOf(dateTaken, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            dateTaken[count] = time;
+            ids[count] = id;
+            sizes[count] = size;
+            count++;
+        }
+
+        long[] dateTaken() {
+            return Arrays.copyOf(dateTaken, count);
+        }
+
+        long[] ids() {
+            return Arrays.copyOf(ids, count);
+        }
+
+        long[] sizes() {
+            return Arrays.copyOf(sizes, count);
+        }
+    }
+}
@@ -39,16 +39,16 @@ import com.getcapacitor.JSObject;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.CountDownLatch;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -68,18 +68,67 @@ public class MultiEventAutoUploadPlugin extends Plugin {
         String filePath;
         String fileName;
         long dateTaken;
-        String hash;
+        String hash;            // null until computed while reading for upload
+        long mediaId;           // MediaStore identity, used to record the upload-time hash
+        long dateModified;
+        long size;
         
-        PhotoToUpload(String filePath, String fileName, long dateTaken, String hash) {
-            this.filePath = filePath;
+        PhotoToUpload(MediaRecord record, String fileName, String hash) {
+            this.filePath = record.filePath;
             this.fileName = fileName;
-            this.dateTaken = dateTaken;
+            this.dateTaken = record.dateTaken;
             this.hash = hash;
+            this.mediaId = record.id;
+            this.dateModified = record.dateModified;
+            this.size = record.size;
         }
     }
+    
+    /**
+     * Event being scanned: its parsed date window, uploaded hashes and the new photos found for it
+     */
+    private static class EventScanTarget {
+        final String eventId;
+        final String eventName;
+        final long startTimeMs;
+        final long endTimeMs;
+        final UploadedHashLookup uploadedHashes;
+        final List<PhotoToUpload> photosToUpload = new ArrayList<>();
+        
+        // MediaStore checkpoint: rows at or before it were already processed for this event
+        String checkpointKey;
+        long checkpoint = -1;
+        long scanPosition = -1;     // Position captured before this scan's query (-1 if the scan failed)
+        
+        // Scan thread only: records submitted for hashing and not yet delivered
+        int pendingRecords = 0;
+        // Set once the scan has finished with the event and passed it to the upload stage
+        volatile boolean handedOff = false;
+        
+        EventScanTarget(String eventId, String eventName, long startTimeMs, long endTimeMs, UploadedHashLookup uploadedHashes) {
+            this.eventId = eventId;
+            this.eventName = eventName;
+            this.startTimeMs = startTimeMs;
+            this.endTimeMs = endTimeMs;
+            this.uploadedHashes = uploadedHashes;
+        }
+    }
+    
     private static final String TAG = "MultiEventAutoUpload";
     private static final String PREFS_NAME = "MultiEventAutoUploadPrefs";
     
+    // Scanned events waiting for or in upload; the scan pauses when this many are handed off
+    private static final int SCANNED_EVENT_QUEUE_CAPACITY = 2;
+    
+    // Beyond this many disjoint event windows the scan queries the overall min/max range instead
+    private static final int MAX_SCAN_QUERY_RANGES = 32;
+    
+    // Date formats are created once per thread instead of per parsed event or uploaded photo
+    private static final ThreadLocal<SimpleDateFormat> ISO_UTC_FORMAT = utcDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    private static final ThreadLocal<SimpleDateFormat> ISO_OFFSET_FORMAT = utcDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+    private static final ThreadLocal<SimpleDateFormat> ISO_LOCAL_FORMAT = utcDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    private static final ThreadLocal<SimpleDateFormat> ISO_MILLIS_UTC_FORMAT = utcDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+    
     private String currentUserId = null;
     private String jwtToken = null;
     private boolean autoUploadEnabled = false;
@@ -110,7 +159,9 @@ public class MultiEventAutoUploadPlugin extends Plugin {
     
     // Upload tracking
     private UploadApiClient uploadApiClient = null;
-    private int totalUploadedPhotos = 0;
+    
+    // Cancellation flag of the running scan/upload pipeline (null when idle)
+    private final AtomicReference<AtomicBoolean> activeSyncCancellation = new AtomicReference<>();
     
     // Upload summary tracking for completion screen
     private int uploadedCount = 0;
@@ -152,6 +203,17 @@ public class MultiEventAutoUploadPlugin extends Plugin {
         }, 5000); // 5 second delay to ensure web app is fully loaded
     }
     
+    @Override
+    protected void handleOnStop() {
+        super.handleOnStop();
+        
+        // The overlay sync is a foreground task; background uploads belong to AutoUploadManager
+        AtomicBoolean cancelled = activeSyncCancellation.get();
+        if (cancelled != null && cancelled.compareAndSet(false, true)) {
+            Log.d(TAG, "🛑 App backgrounded - cancelling event scan and upload");
+        }
+    }
+    
     /**
      * Check auto-upload settings after iOS-style delay (simplified approach)
      */
@@ -2345,27 +2407,23 @@ public class MultiEventAutoUploadPlugin extends Plugin {
     private void checkAllEventsInternalWithToken(String userId, boolean autoEnabled, boolean wifiOnly, boolean backgroundEnabled, String accessToken) {
         Log.d(TAG, "🔄 Running internal checkAllEvents with pre-extracted token...");
         
-        // CRITICAL: Move Permission Gate check to background thread to prevent ANR
-        java.util.concurrent.CompletableFuture.runAsync(() -> {
-            try {
-                // CRITICAL: Check Permission Gate asynchronously to prevent blocking
-                checkPermissionGateAsync(allowed -> {
-                    if (!allowed) {
-                        Log.d(TAG, "⛔ Internal auto-upload (with token) blocked by Permission Gate - user needs to complete onboarding");
-                        new Handler(Looper.getMainLooper()).post(() -> removeNativeOverlayWithDelay(1000));
-                        return;
-                    }
-                    
-                    // Continue with internal check on main thread
-                    new Handler(Looper.getMainLooper()).post(() -> {
-                        continueInternalCheckWithToken(userId, autoEnabled, wifiOnly, backgroundEnabled, accessToken);
-                    });
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Error checking Permission Gate in internal flow: " + e.getMessage(), e);
-                new Handler(Looper.getMainLooper()).post(() -> removeNativeOverlayWithDelay(1000));
-            }
-        });
+        // The Permission Gate check is already asynchronous (it answers on the main thread)
+        try {
+            checkPermissionGateAsync(allowed -> {
+                if (!allowed) {
+                    Log.d(TAG, "⛔ Internal auto-upload (with token) blocked by Permission Gate - user needs to complete onboarding");
+                    removeNativeOverlayWithDelay(1000);
+                    return;
+                }
+                
+                // Permission and network checks don't need the main thread
+                AutoUploadExecutors.io().execute(() ->
+                    continueInternalCheckWithToken(userId, autoEnabled, wifiOnly, backgroundEnabled, accessToken));
+            });
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error checking Permission Gate in internal flow: " + e.getMessage(), e);
+            removeNativeOverlayWithDelay(1000);
+        }
     }
     
     /**
@@ -2409,45 +2467,33 @@ public class MultiEventAutoUploadPlugin extends Plugin {
             // Step 3: Get user events (using pre-extracted token - skip token retrieval!)
             Log.d(TAG, "🔍 Fetching user events using pre-extracted access token (" + accessToken.length() + " chars)...");
             
-            // Move API call to background thread to avoid NetworkOnMainThreadException
-            new Thread(() -> {
-                try {
-                    // Fetch events using real API with pre-extracted token
-                    String eventsJson = apiClient.getUserEvents(userId, accessToken);
-                    JSONObject responseObj = new JSONObject(eventsJson);
-                    JSONArray events = responseObj.getJSONArray("events");
-                    
+            // Fetch events on the network executor, then scan and upload them; nothing here waits on a thread
+            java.util.concurrent.CompletableFuture
+                .supplyAsync(() -> fetchUserEvents(userId, accessToken), AutoUploadExecutors.network())
+                .thenCompose(events -> {
                     Log.d(TAG, "📅 Found " + events.length() + " events for user");
-                    
-                    // Process all events (global auto-upload enabled)
-                    int eventsWithAutoUpload = events.length();
-                    
-                    Log.d(TAG, "📊 Processing all events (global auto-upload enabled): " + eventsWithAutoUpload);
-                    
-                    if (eventsWithAutoUpload > 0) {
-                        Log.d(TAG, "🔍 Starting sequential event scanning for photo detection...");
-                        
-                        // Process each event sequentially
-                        scanEventsSequentially(events, accessToken);
-                        
-                    } else {
+                    if (events.length() == 0) {
                         Log.d(TAG, "✅ No events found - completing");
-                        
-                        // Remove overlay after success (on main thread)
-                        new Handler(Looper.getMainLooper()).post(() -> {
-                            removeNativeOverlayWithDelay(1000);
-                        });
+                        return java.util.concurrent.CompletableFuture.completedFuture(0);
                     }
                     
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Background API call failed: " + e.getMessage(), e);
-                    
-                    // Remove overlay on error (on main thread)
-                    new Handler(Looper.getMainLooper()).post(() -> {
+                    // Scan events and upload each one as soon as its scan is done
+                    Log.d(TAG, "🔍 Starting pipelined event scanning and upload for " + events.length() + " events...");
+                    return scanAndUploadEventsPipelined(events, userId, accessToken);
+                })
+                .whenComplete((uploadedPhotos, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "❌ Event scanning failed: " + error.getMessage(), error);
                         removeNativeOverlayWithDelay(2000);
-                    });
-                }
-            }).start();
+                    } else if (uploadedPhotos > 0) {
+                        new Handler(Looper.getMainLooper()).post(() -> {
+                            updateOverlayText("✅ Successfully uploaded " + uploadedPhotos + " photos");
+                            removeNativeOverlayWithDelay(3000); // Keep success message for 3 seconds
+                        });
+                    } else {
+                        removeNativeOverlayWithDelay(1000);
+                    }
+                });
             
         } catch (Exception e) {
             Log.e(TAG, "❌ Internal auto-upload check failed: " + e.getMessage(), e);
@@ -2467,203 +2513,278 @@ public class MultiEventAutoUploadPlugin extends Plugin {
     }
     
     /**
-     * Scan events sequentially for photo detection
+     * Fetch the user's events (network executor)
      */
-    private void scanEventsSequentially(JSONArray events, String accessToken) {
+    private JSONArray fetchUserEvents(String userId, String accessToken) {
         try {
-            int totalEvents = events.length();
-            Log.d(TAG, "📋 Starting sequential scan of " + totalEvents + " events");
+            String eventsJson = apiClient.getUserEvents(userId, accessToken);
+            return new JSONObject(eventsJson).getJSONArray("events");
+        } catch (Exception e) {
+            throw new java.util.concurrent.CompletionException(e);
+        }
+    }
+    
+    /**
+     * Scan events for photo detection and upload each event's new photos, pipelined: the scan
+     * hands an event to the upload stage as soon as it has moved past the event's window, so
+     * uploads for one event overlap scanning of the next
+     * Overlapping event windows are scanned together so each photo is queried and hashed once,
+     * and only MediaStore rows changed since an event's last complete scan are considered.
+     * Stages run on AutoUploadExecutors (event preparation and uploads on network, the scan on
+     * io) and the whole run stops early if the app is backgrounded.
+     * @return Future completing with the number of photos uploaded
+     */
+    private java.util.concurrent.CompletableFuture<Integer> scanAndUploadEventsPipelined(JSONArray events, String userId, String accessToken) {
+        int totalEvents = events.length();
+        Log.d(TAG, "📋 Starting scan of " + totalEvents + " events");
+        
+        // Cancel any earlier run; this one is cancelled in turn when the app goes to the background
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicBoolean previous = activeSyncCancellation.getAndSet(cancelled);
+        if (previous != null) {
+            previous.set(true);
+        }
+        
+        // Update overlay to show scanning progress
+        setOverlayState("scanning", "Scanning " + totalEvents + (totalEvents == 1 ? " event" : " events"),
+            "Looking for photos to auto-upload", null);
+        
+        // Hide upload components during scanning
+        new Handler(Looper.getMainLooper()).post(() -> {
+            hideUploadComponents();
+        });
+        
+        // Prepare every event (window and uploaded hashes) in parallel before touching MediaStore
+        List<java.util.concurrent.CompletableFuture<EventScanTarget>> preparing = new ArrayList<>();
+        for (int i = 0; i < totalEvents; i++) {
+            JSONObject event = events.optJSONObject(i);
+            preparing.add(java.util.concurrent.CompletableFuture.supplyAsync(
+                () -> createEventScanTarget(event, accessToken), AutoUploadExecutors.network()));
+        }
+        
+        return java.util.concurrent.CompletableFuture
+            .allOf(preparing.toArray(new java.util.concurrent.CompletableFuture[0]))
+            .thenCompose(ignored -> {
+                MediaStoreCheckpoints checkpoints = new MediaStoreCheckpoints(getContext());
+                List<EventScanTarget> targets = new ArrayList<>();
+                for (java.util.concurrent.CompletableFuture<EventScanTarget> prepared : preparing) {
+                    EventScanTarget target = prepared.join(); // Already complete
+                    if (target != null) {
+                        // Keyed on the window too, so an edited event date range is rescanned in full
+                        target.checkpointKey = "scan_" + userId + "_" + target.eventId + "_" + target.startTimeMs + "_" + target.endTimeMs;
+                        target.checkpoint = checkpoints.get(target.checkpointKey);
+                        targets.add(target);
+                    }
+                }
+                return scanAndUploadTargets(targets, checkpoints, accessToken, cancelled);
+            })
+            .whenComplete((uploaded, error) -> {
+                activeSyncCancellation.compareAndSet(cancelled, null);
+                Log.d(TAG, "🎯 Event scanning completed" + (cancelled.get() ? " (cancelled)" : ""));
+            });
+    }
+    
+    /**
+     * Run the scan stage on the io executor and chain each scanned event's upload on the
+     * network executor, one event at a time
+     * Backpressure doesn't park a thread: once SCANNED_EVENT_QUEUE_CAPACITY events are waiting
+     * for or in upload the scan pauses between rows, and the next finished upload resumes it.
+     * @return Future completing with the number of photos uploaded
+     */
+    private java.util.concurrent.CompletableFuture<Integer> scanAndUploadTargets(List<EventScanTarget> targets, MediaStoreCheckpoints checkpoints,
+                                                                              String accessToken, AtomicBoolean cancelled) {
+        if (targets.isEmpty()) {
+            return java.util.concurrent.CompletableFuture.completedFuture(0);
+        }
+        
+        java.util.concurrent.atomic.AtomicInteger queuedEvents = new java.util.concurrent.atomic.AtomicInteger();
+        AtomicReference<Runnable> pausedScan = new AtomicReference<>();
+        AtomicReference<java.util.concurrent.CompletableFuture<Void>> uploads =
+            new AtomicReference<>(java.util.concurrent.CompletableFuture.completedFuture(null));
+        java.util.concurrent.atomic.AtomicInteger eventsUploaded = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger photosUploaded = new java.util.concurrent.atomic.AtomicInteger();
+        AtomicBoolean scanDone = new AtomicBoolean(false);
+        
+        EventScannedListener handOff = target -> {
+            int queued = queuedEvents.incrementAndGet();
             
-            // Process each event one by one (global auto-upload enabled)
-            for (int i = 0; i < totalEvents; i++) {
-                JSONObject event = events.getJSONObject(i);
-                
-                String eventId = event.getString("event_id");
-                String eventName = event.getString("name");
-                
-                Log.d(TAG, "🔍 Processing event " + (i+1) + "/" + totalEvents + ": " + eventName);
-                
-                // Update overlay to show current scanning progress
-                setOverlayState("scanning", "Scanning " + eventName, "Looking for photos to auto-upload", eventName);
-                
-                // Hide upload components during scanning
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    hideUploadComponents();
-                });
-                
-                // Add delay to make the overlay change visible
+            // Chain after the previous event's upload so events upload in order
+            uploads.set(uploads.get().thenRunAsync(() -> {
                 try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-                
-                // Scan this individual event for photos (async to prevent ANR)
-                List<PhotoToUpload> photosToUpload = scanSingleEventForPhotosWithCallback(event, accessToken);
-                int newPhotosCount = photosToUpload.size();
-                
-                Log.d(TAG, "📊 Event '" + eventName + "': " + newPhotosCount + " new photos found");
-                
-                // If there are photos to upload for this event, upload them now
-                if (newPhotosCount > 0) {
-                    Log.d(TAG, "📤 Starting upload of " + newPhotosCount + " photos for " + eventName);
-                    int uploadedCount = uploadPhotosForEvent(photosToUpload, eventId, eventName, accessToken);
-                    totalUploadedPhotos += uploadedCount;
-                    Log.d(TAG, "✅ Uploaded " + uploadedCount + "/" + newPhotosCount + " photos for " + eventName);
+                    if (cancelled.get()) {
+                        return;
+                    }
+                    int eventNumber = eventsUploaded.incrementAndGet();
+                    photosUploaded.addAndGet(uploadScannedEvent(target, eventNumber, targets.size(), checkpoints, accessToken, cancelled));
+                    
+                    if (!scanDone.get() && eventNumber < targets.size()) {
+                        int remaining = targets.size() - eventNumber;
+                        setOverlayState("scanning", "Scanning " + remaining + (remaining == 1 ? " event" : " events"),
+                            "Looking for photos to auto-upload", null);
+                    }
+                } catch (Exception e) {
+                    // Keep the chain going for the remaining events
+                    Log.e(TAG, "❌ Upload failed for " + target.eventName + ": " + e.getMessage(), e);
+                } finally {
+                    queuedEvents.decrementAndGet();
+                    Runnable resume = pausedScan.getAndSet(null);
+                    if (resume != null) {
+                        AutoUploadExecutors.io().execute(resume);
+                    }
                 }
-            }
+            }, AutoUploadExecutors.network()));
             
-            Log.d(TAG, "🎯 Sequential event scanning completed");
-            
-            // Show final success message if photos were uploaded
-            if (totalUploadedPhotos > 0) {
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    updateOverlayText("✅ Successfully uploaded " + totalUploadedPhotos + " photos");
-                    removeNativeOverlayWithDelay(3000); // Keep success message for 3 seconds
-                });
-            } else {
-                // Remove overlay after completion
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    removeNativeOverlayWithDelay(1000);
-                });
+            // Backpressure: pause the scan (the producer) while the upload stage is full
+            return queued < SCANNED_EVENT_QUEUE_CAPACITY;
+        };
+        
+        DevicePhotoScan scan = new DevicePhotoScan(targets, handOff, cancelled);
+        java.util.concurrent.CompletableFuture<Void> scanned = new java.util.concurrent.CompletableFuture<>();
+        Runnable scanStep = new Runnable() {
+            @Override
+            public void run() {
+                if (scan.step()) {
+                    scanDone.set(true);
+                    scanned.complete(null);
+                    return;
+                }
+                pausedScan.set(this);
+                // An upload may have finished before the scan was parked
+                if (queuedEvents.get() < SCANNED_EVENT_QUEUE_CAPACITY && pausedScan.compareAndSet(this, null)) {
+                    AutoUploadExecutors.io().execute(this);
+                }
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Sequential scanning failed: " + e.getMessage(), e);
-            
-            // Remove overlay on error
-            new Handler(Looper.getMainLooper()).post(() -> {
-                removeNativeOverlayWithDelay(2000);
-            });
+        };
+        AutoUploadExecutors.io().execute(scanStep);
+        
+        // Every handed-off upload is chained by the time the scan completes
+        return scanned
+            .thenCompose(ignored -> uploads.get())
+            .thenApply(ignored -> photosUploaded.get());
+    }
+    
+    /**
+     * Upload one scanned event's new photos and move its checkpoint (upload stage)
+     * @param eventNumber 1-based position of the event in upload order
+     */
+    private int uploadScannedEvent(EventScanTarget target, int eventNumber, int totalEvents,
+                                   MediaStoreCheckpoints checkpoints, String accessToken, AtomicBoolean cancelled) {
+        int newPhotosCount = target.photosToUpload.size();
+        
+        Log.d(TAG, "📊 Event " + eventNumber + "/" + totalEvents + " '" + target.eventName + "': " + newPhotosCount + " new photos found");
+        
+        // If there are photos to upload for this event, upload them now
+        int uploadedCount = 0;
+        if (newPhotosCount > 0) {
+            Log.d(TAG, "📤 Starting upload of " + newPhotosCount + " photos for " + target.eventName);
+            uploadedCount = uploadPhotosForEvent(target.photosToUpload, target.eventId, target.eventName, accessToken, cancelled);
+            Log.d(TAG, "✅ Uploaded " + uploadedCount + "/" + newPhotosCount + " photos for " + target.eventName);
+        }
+        
+        // Only move the checkpoint once everything found for the event is on the server,
+        // and every photo skipped as already uploaded was checked against the exact list
+        if (!target.uploadedHashes.isVerified()) {
+            Log.w(TAG, "⚠️ Uploaded hashes for " + target.eventName + " were not verified, keeping checkpoint");
+        } else if (target.scanPosition >= 0 && uploadedCount == newPhotosCount) {
+            checkpoints.put(target.checkpointKey, target.scanPosition);
         }
+        return uploadedCount;
     }
     
     /**
-     * Scan a single event for photos with async photo scanning to prevent ANR
-     * Uses CountDownLatch to wait for async photo scanning to complete
+     * Parse an event's date window and load its uploaded hashes
+     * @return Scan target, or null if the event can't be scanned (invalid window or hash fetch failed)
      */
-    private List<PhotoToUpload> scanSingleEventForPhotosWithCallback(JSONObject event, String accessToken) {
+    private EventScanTarget createEventScanTarget(JSONObject event, String accessToken) {
         try {
             String eventId = event.getString("event_id");
             String eventName = event.getString("name");
             
-            Log.d(TAG, "📸 Scanning photos for event: " + eventName);
-            
-            // Step 1: Get uploaded photos for duplicate detection
-            String uploadedPhotosJson = apiClient.getUploadedPhotos(eventId, accessToken);
-            JSONObject uploadedPhotosObj = new JSONObject(uploadedPhotosJson);
-            JSONArray uploadedHashes = uploadedPhotosObj.getJSONArray("uploadedHashes");
-            int uploadedCount = uploadedPhotosObj.getInt("count");
-            
-            Log.d(TAG, "🔍 Found " + uploadedCount + " uploaded photos for " + eventName);
-            
-            // Step 2: Create hash map for duplicate detection  
-            java.util.Set<String> photoHashMap = new java.util.HashSet<>();
-            for (int i = 0; i < uploadedHashes.length(); i++) {
-                String hashEntry = uploadedHashes.getString(i);
-                // Extract just the hash part (before the first underscore)
-                String fileHash = hashEntry.split("_")[0];
-                if (fileHash != null && !fileHash.isEmpty()) {
-                    photoHashMap.add(fileHash);
-                }
-            }
-            
-            Log.d(TAG, "🗺️ Created hash map with " + photoHashMap.size() + " hashes for duplicate detection");
-            
-            // Step 3: Scan device photos in date range (ASYNC VERSION with sync wait) 
             String startTime = event.optString("start_time", "");
             String endTime = event.optString("end_time", "");
+            Log.d(TAG, "📅 Event '" + eventName + "' date range: " + startTime + " to " + endTime);
             
-            Log.d(TAG, "📅 Event date range: " + startTime + " to " + endTime);
-            
-            // Use CountDownLatch to wait for async photo scanning
-            final java.util.concurrent.CountDownLatch latch = new java.util.concurrent.CountDownLatch(1);
-            final java.util.concurrent.atomic.AtomicReference<List<PhotoToUpload>> resultRef = new java.util.concurrent.atomic.AtomicReference<>();
-            
-            // Scan device photos with async method to prevent ANR
-            scanDevicePhotosForEventAsync(eventId, startTime, endTime, photoHashMap, eventName, photos -> {
-                resultRef.set(photos);
-                latch.countDown();
-            });
-            
-            // Wait for async photo scanning to complete (with timeout)
-            try {
-                boolean completed = latch.await(30, java.util.concurrent.TimeUnit.SECONDS);
-                if (!completed) {
-                    Log.w(TAG, "⚠️ Photo scanning timeout for " + eventName);
-                    return new ArrayList<>();
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                Log.e(TAG, "❌ Photo scanning interrupted for " + eventName);
-                return new ArrayList<>();
-            }
-            
-            List<PhotoToUpload> photosToUpload = resultRef.get();
-            if (photosToUpload == null) {
-                photosToUpload = new ArrayList<>();
+            long startTimeMs = parseIsoDateTime(startTime);
+            long endTimeMs = parseIsoDateTime(endTime);
+            if (startTimeMs == 0 || endTimeMs == 0) {
+                Log.w(TAG, "⚠️ Invalid date range for " + eventName + ", skipping photo scan");
+                return null;
             }
             
-            Log.d(TAG, "📸 Scan complete for '" + eventName + "': " + photosToUpload.size() + " new photos found");
-            
-            return photosToUpload;
+            // Get uploaded hashes for duplicate detection (cached filter or server list)
+            UploadedHashLookup uploadedHashes = loadUploadedHashLookup(eventId, eventName, accessToken);
+            return new EventScanTarget(eventId, eventName, startTimeMs, endTimeMs, uploadedHashes);
             
         } catch (Exception e) {
-            Log.e(TAG, "❌ Failed to scan event for photos: " + e.getMessage(), e);
-            return new ArrayList<>();
+            Log.e(TAG, "❌ Failed to prepare event for scanning: " + e.getMessage(), e);
+            return null;
         }
     }
-
+    
     /**
-     * Scan a single event for photos that need uploading (DEPRECATED - use scanSingleEventForPhotosWithCallback)
-     * Returns list of photos that need to be uploaded
+     * Get an event's uploaded hashes for duplicate detection
+     * Revalidates the server list on every pass (ETag / ?since= delta). The persisted Bloom
+     * filter is kept on a 304 and extended on a delta without reading the cached list; the
+     * exact set is only streamed from the cache when the filter reports a possible match.
+     * A full list, or a filter that can't be reused, rebuilds both.
      */
-    private List<PhotoToUpload> scanSingleEventForPhotos(JSONObject event, String accessToken) {
-        try {
-            String eventId = event.getString("event_id");
-            String eventName = event.getString("name");
-            
-            Log.d(TAG, "📸 Scanning photos for event: " + eventName);
-            
-            // Step 1: Get uploaded photos for duplicate detection
-            String uploadedPhotosJson = apiClient.getUploadedPhotos(eventId, accessToken);
-            JSONObject uploadedPhotosObj = new JSONObject(uploadedPhotosJson);
-            JSONArray uploadedHashes = uploadedPhotosObj.getJSONArray("uploadedHashes");
-            int uploadedCount = uploadedPhotosObj.getInt("count");
-            
-            Log.d(TAG, "🔍 Found " + uploadedCount + " uploaded photos for " + eventName);
-            
-            // Step 2: Create hash map for duplicate detection  
-            java.util.Set<String> photoHashMap = new java.util.HashSet<>();
-            for (int i = 0; i < uploadedHashes.length(); i++) {
-                String hashEntry = uploadedHashes.getString(i);
-                // Extract just the hash part (before the first underscore)
-                String fileHash = hashEntry.split("_")[0];
-                if (fileHash != null && !fileHash.isEmpty()) {
-                    photoHashMap.add(fileHash);
+    private UploadedHashLookup loadUploadedHashLookup(String eventId, String eventName, String accessToken) throws Exception {
+        // Uploads finishing meanwhile wait to record into the saved filter rather than a replaced file
+        synchronized (UploadedHashFilterStore.lockFor(eventId)) {
+            return syncUploadedHashLookup(eventId, eventName, accessToken);
+        }
+    }
+    
+    private UploadedHashLookup syncUploadedHashLookup(String eventId, String eventName, String accessToken) throws Exception {
+        UploadedHashFilterStore filterStore = new UploadedHashFilterStore(getContext());
+        UploadedHashBloomFilter filter = filterStore.take(eventId);
+        
+        UploadedHashStore hashStore = new UploadedHashStore(new File(getContext().getFilesDir(), "uploaded_hashes"));
+        UserEventsApiClient.UploadedHashSync sync = apiClient.syncUploadedPhotoHashes(eventId, accessToken, hashStore);
+        int entryCount = sync.entryCount;
+        Log.d(TAG, "🔍 Found " + entryCount + " uploaded photos for " + eventName);
+        
+        if (filter != null && !sync.isFullList() && filter.hasCapacityFor(entryCount)) {
+            if (sync.addedHashes != null) {
+                // Removed hashes stay set; a stale hit is settled by the exact set
+                for (String hashEntry : sync.addedHashes) {
+                    filter.putUploadedEntry(hashEntry);
                 }
             }
-            
-            Log.d(TAG, "🗺️ Created hash map with " + photoHashMap.size() + " hashes for duplicate detection");
-            
-            // Step 3: Scan device photos in date range  
-            String startTime = event.optString("start_time", "");
-            String endTime = event.optString("end_time", "");
-            
-            Log.d(TAG, "📅 Event date range: " + startTime + " to " + endTime);
-            
-            // Scan device photos with date filtering and duplicate detection
-            List<PhotoToUpload> photosToUpload = scanDevicePhotosForEventInternal(eventId, startTime, endTime, photoHashMap, eventName);
-            
-            Log.d(TAG, "📸 Scan complete for '" + eventName + "': " + photosToUpload.size() + " new photos found");
-            
-            return photosToUpload;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Failed to scan event for photos: " + e.getMessage(), e);
-            return new ArrayList<>();
+            filterStore.save(eventId, filter);
+            Log.d(TAG, "🌸 Using uploaded-hash filter for " + eventName + " (" + filter.getEntryCount() + " entries" +
+                (sync.notModified ? ", not modified)" : ", +" + sync.addedHashes.size() + ")"));
+            return new FilteredUploadedHashLookup(filter, () -> readUploadedHashSet(hashStore, eventId, entryCount));
         }
+        
+        Sha256HashSet photoHashMap = new Sha256HashSet(entryCount);
+        UploadedHashBloomFilter rebuilt = UploadedHashBloomFilter.create(entryCount);
+        UploadedHashStore.EntryVisitor addEntry = hashEntry -> {
+            photoHashMap.addUploadedEntry(hashEntry);
+            rebuilt.putUploadedEntry(hashEntry);
+        };
+        if (sync.uploadedHashes != null) {
+            for (String hashEntry : sync.uploadedHashes) {
+                addEntry.visit(hashEntry);
+            }
+        } else if (!hashStore.forEachEntry(eventId, addEntry)) {
+            throw new Exception("Uploaded hash cache missing for event " + eventId);
+        }
+        filterStore.save(eventId, rebuilt);
+        Log.d(TAG, "🗺️ Created hash map with " + photoHashMap.size() + " hashes for duplicate detection");
+        return photoHashMap;
+    }
+    
+    /**
+     * Stream the exact hash set from an event's cached entries ("sha256hash_fileSize_dateTaken"; the hash prefix is parsed in place)
+     */
+    private static Sha256HashSet readUploadedHashSet(UploadedHashStore hashStore, String eventId, int entryCount) throws Exception {
+        Sha256HashSet photoHashMap = new Sha256HashSet(entryCount);
+        if (!hashStore.forEachEntry(eventId, photoHashMap::addUploadedEntry)) {
+            throw new Exception("Uploaded hash cache missing for event " + eventId);
+        }
+        Log.d(TAG, "🗺️ Created hash map with " + photoHashMap.size() + " hashes for duplicate detection");
+        return photoHashMap;
     }
     
     /**
@@ -2761,10 +2882,14 @@ public class MultiEventAutoUploadPlugin extends Plugin {
     }
     
     /**
-     * Callback interface for async photo scanning
+     * Listener for events whose photos have all been scanned, called on the scan thread as
+     * soon as the scan moves past the event's window
      */
-    private interface PhotoScanCallback {
-        void onScanComplete(List<PhotoToUpload> photos);
+    private interface EventScannedListener {
+        /**
+         * @return false to pause the scan until it's stepped again
+         */
+        boolean onEventScanned(EventScanTarget target);
     }
     
     /**
@@ -2918,111 +3043,312 @@ public class MultiEventAutoUploadPlugin extends Plugin {
     }
     
     /**
-     * Scan device photos for a specific event date range (ASYNC VERSION)
-     * @param eventId Event ID for tracking
-     * @param startTime Event start time in ISO format (2024-08-18T10:00:00Z)
-     * @param endTime Event end time in ISO format (2024-08-18T18:00:00Z)
-     * @param uploadedHashes Set of already uploaded photo hashes for duplicate detection
-     * @param eventName Event name for logging
-     * @param callback Callback to receive results
-     */
-    private void scanDevicePhotosForEventAsync(String eventId, String startTime, String endTime, java.util.Set<String> uploadedHashes, String eventName, PhotoScanCallback callback) {
-        // Move intensive photo scanning to background thread to prevent ANR
-        java.util.concurrent.CompletableFuture.runAsync(() -> {
-            List<PhotoToUpload> photosToUpload = scanDevicePhotosForEventInternal(eventId, startTime, endTime, uploadedHashes, eventName);
-            // Post results back to main thread
-            new Handler(Looper.getMainLooper()).post(() -> callback.onScanComplete(photosToUpload));
-        });
-    }
-    
-    /**
-     * Internal synchronous photo scanning (runs on background thread)
+     * Build a window index over the scan targets (same order as the list)
      */
-    private List<PhotoToUpload> scanDevicePhotosForEventInternal(String eventId, String startTime, String endTime, java.util.Set<String> uploadedHashes, String eventName) {
-        try {
-            Log.d(TAG, "📸 Starting device photo scan for " + eventName);
-            
-            // Parse start and end times 
-            long startTimeMs = parseIsoDateTime(startTime);
-            long endTimeMs = parseIsoDateTime(endTime);
-            
-            if (startTimeMs == 0 || endTimeMs == 0) {
-                Log.w(TAG, "⚠️ Invalid date range for " + eventName + ", skipping photo scan");
-                return new ArrayList<>();
+    private static EventWindowIndex buildEventWindowIndex(List<EventScanTarget> targets) {
+        long[] startTimes = new long[targets.size()];
+        long[] endTimes = new long[targets.size()];
+        for (int i = 0; i < targets.size(); i++) {
+            startTimes[i] = targets.get(i).startTimeMs;
+            endTimes[i] = targets.get(i).endTimeMs;
+        }
+        return new EventWindowIndex(startTimes, endTimes);
+    }
+    
+    /**
+     * One device photo scan over a set of events, run in steps on the io executor
+     * Runs one MediaStore query over the union of the events' windows, hashes each photo at
+     * most once and checks it against the uploaded hashes of every event whose window contains it.
+     * A step stops between rows when a hand-off asks the scan to pause, keeping the cursor
+     * open for the next step; steps never overlap.
+     */
+    private class DevicePhotoScan {
+        private final List<EventScanTarget> targets;
+        private final EventScannedListener listener;
+        private final AtomicBoolean cancelled;
+        // The query runs newest first, so events finish in descending order of start time
+        private final List<EventScanTarget> completionOrder;
+        private final int[] nextCompletion = { 0 };
+        // Events each submitted record applies to, until its hash result is delivered
+        private final Map<Long, int[]> pendingEvents = new HashMap<>();
+        
+        private EventWindowIndex windowIndex;
+        private Cursor cursor;
+        private PhotoHashPipeline hashPipeline;
+        private int[] containingEvents;
+        private int idIndex;
+        private int dataIndex;
+        private int dateTakenIndex;
+        private int dateModifiedIndex;
+        private int sizeIndex;
+        private int positionIndex;
+        private long completedPosition = -1;
+        private boolean started = false;
+        private boolean queried = false;
+        private boolean pauseRequested = false;
+        private int totalPhotosInRange = 0;
+        private int hashedPhotos = 0;
+        
+        /**
+         * @param listener Told about each event as soon as its photos are all scanned; returning
+         *                 false pauses the scan after the current row
+         * @param cancelled Checked between rows; a cancelled scan hands off no further events
+         */
+        DevicePhotoScan(List<EventScanTarget> targets, EventScannedListener listener, AtomicBoolean cancelled) {
+            this.targets = targets;
+            this.listener = listener;
+            this.cancelled = cancelled;
+            this.completionOrder = new ArrayList<>(targets);
+            Collections.sort(completionOrder, (a, b) -> Long.compare(b.startTimeMs, a.startTimeMs));
+        }
+        
+        /**
+         * Scan rows until the scan ends or a hand-off asks it to pause
+         * @return true once the scan is over (finished, cancelled or failed); false if paused
+         */
+        boolean step() {
+            try {
+                if (!started) {
+                    started = true;
+                    open();
+                }
+                
+                if (cursor != null) {
+                    pauseRequested = false;
+                    while (!cancelled.get() && !pauseRequested && cursor.moveToNext()) {
+                        readRow();
+                    }
+                    if (cancelled.get()) {
+                        // Abandon in-flight hashes; unfinished events are picked up next run
+                        Log.d(TAG, "🛑 Photo scan cancelled after " + totalPhotosInRange + " photos");
+                        close();
+                        return true;
+                    }
+                    if (pauseRequested) {
+                        return false;
+                    }
+                    hashPipeline.finish();
+                }
+                // Records left here failed to hash and were never delivered
+                int unreadablePhotos = pendingEvents.size();
+                close();
+                
+                int newPhotos = 0;
+                for (EventScanTarget target : targets) {
+                    newPhotos += target.photosToUpload.size();
+                }
+                Log.d(TAG, "📸 Photo scan complete: " + totalPhotosInRange + " photos to check, " + hashedPhotos +
+                      " hashed, " + unreadablePhotos + " unreadable, " + newPhotos + " new across " + targets.size() + " events");
+                
+                // Hand off the events the scan never moved past (the oldest ones)
+                completeScannedEvents(completionOrder, nextCompletion, Long.MIN_VALUE, queried ? completedPosition : -1, listener);
+                
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Error scanning device photos: " + e.getMessage(), e);
+                close();
+                // Events already handed off were fully scanned and may be uploading
+                for (EventScanTarget target : targets) {
+                    if (!target.handedOff) {
+                        target.photosToUpload.clear();
+                    }
+                }
             }
+            return true;
+        }
+        
+        private void open() {
+            windowIndex = buildEventWindowIndex(targets);
+            int windowCount = windowIndex.getMergedWindowCount();
             
-            Log.d(TAG, "📅 Scanning photos taken between " + new Date(startTimeMs) + " and " + new Date(endTimeMs));
+            // Rows at or before every event's checkpoint were already processed; capture the
+            // current position first so rows changing during this scan are seen next time
+            MediaStoreCheckpoints checkpoints = new MediaStoreCheckpoints(getContext());
+            completedPosition = checkpoints.currentPosition();
+            long minCheckpoint = Long.MAX_VALUE;
+            for (EventScanTarget target : targets) {
+                minCheckpoint = Math.min(minCheckpoint, target.checkpoint);
+            }
+            String positionColumn = MediaStoreCheckpoints.getModifiedColumn();
+            Log.d(TAG, "📸 Starting device photo scan for " + targets.size() + " events over " + windowCount + " merged date ranges (" +
+                  new Date(windowIndex.getMinStart()) + " to " + new Date(windowIndex.getMaxEnd()) + ")");
             
             // Query MediaStore for images in the date range
             String[] projection = {
                 MediaStore.Images.Media._ID,
                 MediaStore.Images.Media.DATA,
                 MediaStore.Images.Media.DATE_TAKEN,
-                MediaStore.Images.Media.SIZE
-            };
-            
-            String selection = MediaStore.Images.Media.DATE_TAKEN + " >= ? AND " + 
-                              MediaStore.Images.Media.DATE_TAKEN + " <= ? AND " +
-                              MediaStore.Images.Media.SIZE + " > ?";
-                              
-            String[] selectionArgs = {
-                String.valueOf(startTimeMs),
-                String.valueOf(endTimeMs),
-                "1000" // Only photos > 1KB (filter out tiny thumbnails)
+                MediaStore.Images.Media.DATE_MODIFIED,
+                MediaStore.Images.Media.SIZE,
+                positionColumn
             };
+
+            // One range per merged window so rows in the gaps between events are never read;
+            // very many disjoint windows collapse to the overall min/max range
+            boolean perWindowRanges = windowCount <= MAX_SCAN_QUERY_RANGES;
+            int rangeCount = perWindowRanges ? windowCount : 1;
+            boolean incremental = minCheckpoint >= 0;
+            StringBuilder selection = new StringBuilder("(");
+            String[] selectionArgs = new String[rangeCount * 2 + (incremental ? 2 : 1)];
+            for (int i = 0; i < rangeCount; i++) {
+                if (i > 0) {
+                    selection.append(" OR ");
+                }
+                selection.append("(").append(MediaStore.Images.Media.DATE_TAKEN).append(" >= ? AND ")
+                    .append(MediaStore.Images.Media.DATE_TAKEN).append(" <= ?)");
+                selectionArgs[i * 2] = String.valueOf(perWindowRanges ? windowIndex.getMergedWindowStart(i) : windowIndex.getMinStart());
+                selectionArgs[i * 2 + 1] = String.valueOf(perWindowRanges ? windowIndex.getMergedWindowEnd(i) : windowIndex.getMaxEnd());
+            }
+            selection.append(") AND ").append(MediaStore.Images.Media.SIZE).append(" > ?");
+            selectionArgs[rangeCount * 2] = "1000"; // Only photos > 1KB (filter out tiny thumbnails)
+            if (incremental) {
+                selection.append(" AND ").append(positionColumn).append(" > ?");
+                selectionArgs[rangeCount * 2 + 1] = String.valueOf(minCheckpoint);
+                Log.d(TAG, "🔁 Incremental scan: only rows with " + positionColumn + " > " + minCheckpoint);
+            }
             
             String sortOrder = MediaStore.Images.Media.DATE_TAKEN + " DESC";
             
-            int totalPhotosInRange = 0;
-            List<PhotoToUpload> photosToUpload = new ArrayList<>();
-            
-            try (Cursor cursor = getContext().getContentResolver().query(
-                    MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    projection,
-                    selection,
-                    selectionArgs,
-                    sortOrder)) {
-                
-                if (cursor != null) {
-                    totalPhotosInRange = cursor.getCount();
-                    Log.d(TAG, "📊 Found " + totalPhotosInRange + " photos in date range for " + eventName);
-                    
-                    while (cursor.moveToNext()) {
-                        String filePath = cursor.getString(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA));
-                        long dateTaken = cursor.getLong(cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATE_TAKEN));
-                        
-                        // Calculate SHA-256 hash for duplicate detection using PhotoHash class
-                        // Convert file path to Uri for PhotoHash compatibility
-                        android.net.Uri photoUri = android.net.Uri.fromFile(new File(filePath));
-                        String fileHash = PhotoHash.calculateSHA256(getContext(), photoUri);
-                        
-                        if (fileHash != null) {
-                            String rawFileName = filePath.substring(filePath.lastIndexOf('/') + 1);
-                            String fileName = sanitizeFileName(rawFileName);
-                            if (!uploadedHashes.contains(fileHash)) {
-                                // Add to upload list
-                                photosToUpload.add(new PhotoToUpload(filePath, fileName, dateTaken, fileHash));
-                                Log.d(TAG, "📷 New photo found: " + fileName + 
-                                      " (hash: " + fileHash.substring(0, 12) + "...)");
-                            } else {
-                                Log.d(TAG, "⏭️ Duplicate detected: " + fileName + 
-                                      " (matches server hash: " + fileHash.substring(0, 12) + "...)");
-                            }
-                        }
-                    }
-                } else {
-                    Log.w(TAG, "⚠️ Cursor is null - no photos found or permission denied");
+            cursor = getContext().getContentResolver().query(
+                MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
+                projection,
+                selection.toString(),
+                selectionArgs,
+                sortOrder);
+            if (cursor == null) {
+                Log.w(TAG, "⚠️ Cursor is null - no photos found or permission denied");
+                return;
+            }
+            queried = true;
+            idIndex = cursor.getColumnIndexOrThrow(MediaStore.Images.Media._ID);
+            dataIndex = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA);
+            dateTakenIndex = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATE_TAKEN);
+            dateModifiedIndex = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATE_MODIFIED);
+            sizeIndex = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.SIZE);
+            positionIndex = cursor.getColumnIndexOrThrow(positionColumn);
+            containingEvents = new int[targets.size()];
+            
+            // Cursor thread drains rows into records; the pipeline hashes them in parallel
+            // and hands results back here in DATE_TAKEN order
+            hashPipeline = new PhotoHashPipeline(getContext(), (record, fileHash) -> {
+                int[] eventIndexes = pendingEvents.remove(record.id);
+                addScannedPhotoToEvents(record, fileHash, targets, eventIndexes, eventIndexes.length);
+                for (int eventIndex : eventIndexes) {
+                    targets.get(eventIndex).pendingRecords--;
+                }
+                // Results arrive in DATE_TAKEN order, so events starting after this photo are done
+                if (!completeScannedEvents(completionOrder, nextCompletion, record.dateTaken, completedPosition, listener)) {
+                    pauseRequested = true;
+                }
+            });
+        }
+        
+        private void readRow() throws InterruptedException {
+            long dateTaken = cursor.getLong(dateTakenIndex);
+            long position = cursor.getLong(positionIndex);
+            int eventCount = 0;
+            int windowMatches = windowIndex.findContaining(dateTaken, containingEvents);
+            for (int i = 0; i < windowMatches; i++) {
+                // Skip events that already processed this row in an earlier scan
+                if (position > targets.get(containingEvents[i]).checkpoint) {
+                    containingEvents[eventCount++] = containingEvents[i];
                 }
             }
+            if (eventCount == 0) {
+                return; // Outside every window (min/max fallback) or already processed
+            }
+            totalPhotosInRange++;
             
-            Log.d(TAG, "📸 Photo scan complete for " + eventName + ": " + 
-                  photosToUpload.size() + "/" + totalPhotosInRange + " new photos");
+            MediaRecord record = new MediaRecord(
+                cursor.getLong(idIndex),
+                cursor.getString(dataIndex),
+                dateTaken,
+                cursor.getLong(dateModifiedIndex),
+                cursor.getLong(sizeIndex));
             
-            return photosToUpload;
+            pendingEvents.put(record.id, Arrays.copyOf(containingEvents, eventCount));
+            for (int i = 0; i < eventCount; i++) {
+                targets.get(containingEvents[i]).pendingRecords++;
+            }
             
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error scanning device photos for " + eventName + ": " + e.getMessage(), e);
-            return new ArrayList<>();
+            // Cheap tier first: only hash if some event containing the photo has seen its size
+            if (anyEventMayContainFileSize(record, targets, containingEvents, eventCount)) {
+                hashPipeline.submit(record);
+                hashedPhotos++;
+            } else {
+                hashPipeline.submitDeferred(record);
+            }
+        }
+        
+        private void close() {
+            if (hashPipeline != null) {
+                hashPipeline.close();
+                hashPipeline = null;
+            }
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+    }
+    
+    /**
+     * Finish every event that starts after the given time, in completion order
+     * An event's checkpoint position is only kept if none of its photos failed to hash.
+     * @param scannedBefore DATE_TAKEN the scan has moved past (Long.MIN_VALUE to finish all)
+     * @param position Position to checkpoint finished events at, or -1 if the query failed
+     * @return false if the listener asked the scan to pause
+     */
+    private static boolean completeScannedEvents(List<EventScanTarget> completionOrder, int[] nextCompletion, long scannedBefore,
+                                                 long position, EventScannedListener listener) {
+        boolean keepScanning = true;
+        while (nextCompletion[0] < completionOrder.size()) {
+            EventScanTarget target = completionOrder.get(nextCompletion[0]);
+            if (scannedBefore != Long.MIN_VALUE && target.startTimeMs <= scannedBefore) {
+                break;
+            }
+            nextCompletion[0]++;
+            target.scanPosition = position >= 0 && target.pendingRecords == 0 ? position : -1;
+            target.handedOff = true;
+            if (!listener.onEventScanned(target)) {
+                keepScanning = false;
+            }
+        }
+        return keepScanning;
+    }
+    
+    /**
+     * Check whether any event containing the photo has an uploaded photo of the same size
+     */
+    private static boolean anyEventMayContainFileSize(MediaRecord record, List<EventScanTarget> targets, int[] eventIndexes, int eventCount) {
+        for (int i = 0; i < eventCount; i++) {
+            if (targets.get(eventIndexes[i]).uploadedHashes.mayContainFileSize(record.size)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Fan a scanned photo out to every event whose window contains it
+     * @param fileHash SHA-256 of the photo, or null if hashing was deferred because no event has its size
+     * @param eventIndexes Indexes into targets of the events containing the photo
+     * @param eventCount Number of valid entries in eventIndexes
+     */
+    private void addScannedPhotoToEvents(MediaRecord record, String fileHash, List<EventScanTarget> targets, int[] eventIndexes, int eventCount) {
+        String fileName = sanitizeFileName(record.getFileName());
+        for (int i = 0; i < eventCount; i++) {
+            EventScanTarget target = targets.get(eventIndexes[i]);
+            
+            if (fileHash != null && target.uploadedHashes.mayContainFileSize(record.size)
+                    && target.uploadedHashes.contains(fileHash)) {
+                Log.d(TAG, "⏭️ Duplicate detected for " + target.eventName + ": " + fileName + 
+                      " (matches server hash: " + fileHash.substring(0, 12) + "...)");
+            } else {
+                // Add to upload list; a deferred hash is calculated when the photo is read for upload
+                target.photosToUpload.add(new PhotoToUpload(record, fileName, fileHash));
+                Log.d(TAG, "📷 New photo found for " + target.eventName + ": " + fileName + 
+                      (fileHash != null ? " (hash: " + fileHash.substring(0, 12) + "...)" : " (size " + record.size + " not on server, hash deferred)"));
+            }
         }
     }
     
@@ -3034,7 +3360,7 @@ public class MultiEventAutoUploadPlugin extends Plugin {
      * @param jwtToken JWT token for authentication
      * @return Number of successfully uploaded photos
      */
-    private int uploadPhotosForEvent(List<PhotoToUpload> photosToUpload, String eventId, String eventName, String jwtToken) {
+    private int uploadPhotosForEvent(List<PhotoToUpload> photosToUpload, String eventId, String eventName, String jwtToken, AtomicBoolean cancelled) {
         int uploadedCount = 0;
         int total = photosToUpload.size();
         
@@ -3046,6 +3372,10 @@ public class MultiEventAutoUploadPlugin extends Plugin {
         }
         
         for (int i = 0; i < total; i++) {
+            if (cancelled.get()) {
+                Log.d(TAG, "🛑 Upload cancelled for " + eventName + " after " + i + "/" + total + " photos");
+                break;
+            }
             PhotoToUpload photo = photosToUpload.get(i);
             final int currentIndex = i + 1;
             
@@ -3061,40 +3391,32 @@ public class MultiEventAutoUploadPlugin extends Plugin {
             });
             
             try {
-                // Read photo file and convert to base64
+                // Stream the file into the JSON body as base64, hashing the bytes in the same pass
                 File photoFile = new File(photo.filePath);
-                byte[] fileBytes = readFileToBytes(photoFile);
-                String base64Data = Base64.getEncoder().encodeToString(fileBytes);
-                
-                // Format timestamp for API
-                SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
-                isoFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-                String originalTimestamp = isoFormat.format(new Date(photo.dateTaken));
+                String originalTimestamp = ISO_MILLIS_UTC_FORMAT.get().format(new Date(photo.dateTaken));
                 
-                // Create upload request body
-                JSONObject requestBody = new JSONObject();
-                requestBody.put("eventId", eventId);
-                requestBody.put("fileName", photo.fileName);
-                requestBody.put("fileData", base64Data);
-                requestBody.put("mediaType", "photo");
-                requestBody.put("originalTimestamp", originalTimestamp);
-                requestBody.put("deviceId", "android-" + android.os.Build.MODEL);
+                JSONObject fields = new JSONObject();
+                fields.put("eventId", eventId);
+                fields.put("fileName", photo.fileName);
+                fields.put("mediaType", "photo");
+                fields.put("originalTimestamp", originalTimestamp);
+                fields.put("deviceId", "android-" + android.os.Build.MODEL);
                 
-                // Add metadata
-                JSONObject metadata = new JSONObject();
-                metadata.put("source", "multi-event-auto-upload");
-                metadata.put("hash", photo.hash);
-                metadata.put("eventName", eventName);
-                requestBody.put("metadata", metadata);
+                // Metadata carries the upload-time hash, so it follows the file data
+                Base64JsonRequestBody uploadBody = new Base64JsonRequestBody(photoFile, fields, "fileData", sha256 -> {
+                    JSONObject metadata = new JSONObject();
+                    metadata.put("source", "multi-event-auto-upload");
+                    metadata.put("hash", sha256);
+                    metadata.put("eventName", eventName);
+                    return new JSONObject().put("metadata", metadata);
+                });
                 
                 // Make upload API call
                 String uploadUrl = "https://jgfcfdlfcnmaripgpepl.supabase.co/functions/v1/mobile-upload";
                 
                 okhttp3.Request request = new okhttp3.Request.Builder()
                     .url(uploadUrl)
-                    .post(okhttp3.RequestBody.create(
-                        requestBody.toString(),
-                        okhttp3.MediaType.parse("application/json")))
+                    .post(uploadBody)
                     .addHeader("Authorization", "Bearer " + jwtToken)
                     .addHeader("apikey", SUPABASE_ANON_KEY)
                     .addHeader("Content-Type", "application/json")
@@ -3103,18 +3425,28 @@ public class MultiEventAutoUploadPlugin extends Plugin {
                     .addHeader("X-Client-Version", "1.0.0")
                     .build();
                 
-                // Execute upload
-                okhttp3.OkHttpClient client = new okhttp3.OkHttpClient.Builder()
-                    .connectTimeout(30, java.util.concurrent.TimeUnit.SECONDS)
-                    .writeTimeout(300, java.util.concurrent.TimeUnit.SECONDS) // 5 min for large photos
-                    .readTimeout(300, java.util.concurrent.TimeUnit.SECONDS)
-                    .build();
+                // Execute upload on the shared client (reuses the warm connection to the host)
+                try (okhttp3.Response response = HttpClientProvider.upload().newCall(request).execute()) {
+                    // Verify against the scan-time hash (if any) and keep the index current
+                    // (null if the server answered before the body was fully sent)
+                    String uploadHash = uploadBody.getSha256();
+                    if (uploadHash != null) {
+                        if (photo.hash != null && !photo.hash.equals(uploadHash)) {
+                            Log.w(TAG, "⚠️ " + photo.fileName + " changed since scan, uploaded with new hash " + PhotoHash.getTruncatedHash(uploadHash));
+                        }
+                        photo.hash = uploadHash;
+                        if (uploadBody.getBytesRead() == photo.size) {
+                            PhotoHashIndex.getInstance(getContext()).putSha256(photo.mediaId, photo.dateModified, photo.size, uploadHash);
+                        }
+                    }
                     
-                try (okhttp3.Response response = client.newCall(request).execute()) {
-                    if (response.isSuccessful()) {
+                    if (response.isSuccessful() && uploadHash != null) {
                         uploadedCount++;
                         Log.d(TAG, "✅ Photo " + currentIndex + "/" + total + " uploaded successfully: " + photo.fileName);
                         
+                        // Keep the event's cached filter current so the next pass skips this photo
+                        new UploadedHashFilterStore(getContext()).recordUpload(eventId, photo.hash, uploadBody.getBytesRead());
+                        
                         // TODO: Update progress via upload-status-update endpoint
                     } else {
                         String responseBody = response.body() != null ? response.body().string() : "";
@@ -3333,21 +3665,6 @@ public class MultiEventAutoUploadPlugin extends Plugin {
         return statusBarHeight;
     }
     
-    /**
-     * Read file to byte array
-     */
-    private byte[] readFileToBytes(File file) throws Exception {
-        try (FileInputStream fis = new FileInputStream(file);
-             ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = fis.read(buffer)) != -1) {
-                bos.write(buffer, 0, bytesRead);
-            }
-            return bos.toByteArray();
-        }
-    }
-    
     /**
      * Parse ISO 8601 datetime string to milliseconds
      * @param isoDateTime ISO datetime string (e.g., "2024-08-18T10:00:00Z" or "2024-08-18T10:00:00+00:00")
@@ -3366,24 +3683,20 @@ public class MultiEventAutoUploadPlugin extends Plugin {
             // Handle different ISO 8601 formats
             if (dateTimeStr.endsWith("Z")) {
                 // Format: 2024-08-18T10:00:00Z
-                isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
+                isoFormat = ISO_UTC_FORMAT.get();
             } else if (dateTimeStr.contains("+00:00")) {
                 // Format: 2024-08-18T10:00:00+00:00 (convert to Z format)
                 dateTimeStr = dateTimeStr.replace("+00:00", "Z");
-                isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.getDefault());
+                isoFormat = ISO_UTC_FORMAT.get();
             } else if (dateTimeStr.contains("+") || dateTimeStr.contains("-")) {
                 // Format: 2024-08-18T10:00:00+05:00 (general timezone format)
-                isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.getDefault());
+                isoFormat = ISO_OFFSET_FORMAT.get();
             } else {
                 // Default format without timezone
-                isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault());
-                isoFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
+                isoFormat = ISO_LOCAL_FORMAT.get();
             }
             
-            isoFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
             Date date = isoFormat.parse(dateTimeStr);
-            
-            Log.d(TAG, "✅ Parsed datetime: " + isoDateTime + " -> " + (date != null ? date.toString() : "null"));
             return date != null ? date.getTime() : 0;
             
         } catch (Exception e) {
@@ -3392,6 +3705,20 @@ public class MultiEventAutoUploadPlugin extends Plugin {
         }
     }
     
+    /**
+     * Per-thread SimpleDateFormat (the class isn't thread-safe), parsing and formatting in UTC
+     */
+    private static ThreadLocal<SimpleDateFormat> utcDateFormat(String pattern) {
+        return new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+                format.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
+                return format;
+            }
+        };
+    }
+    
     /**
      * Check Permission Gate with retry logic for 'not_ready' state
      * Returns true if auto-upload can proceed, false if blocked
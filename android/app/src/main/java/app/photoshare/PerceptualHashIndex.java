@@ -0,0 +1,180 @@
+package app.photoshare;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Near-neighbor index over 64-bit perceptual hashes (dHash)
+ * Multi-index hashing: each hash is split into 4 bands of 16 bits and every band gets
+ * its own sorted lookup table. If two hashes differ in at most 3 bits, at least one
+ * band must match exactly (pigeonhole), so radius queries up to 3 only verify the few
+ * entries sharing a band instead of scanning every uploaded photo.
+ * Wider radius queries fall back to a linear scan over the primitive hash array.
+ * @param <T> Value stored alongside each hash
+ */
+public class PerceptualHashIndex<T> {
+    private static final int BAND_COUNT = 4;
+    private static final int BAND_BITS = 16;
+    private static final long BAND_MASK = (1L << BAND_BITS) - 1;
+
+    /**
+     * Largest radius answered exactly through the band tables
+     */
+    public static final int MAX_INDEXED_DISTANCE = BAND_COUNT - 1;
+
+    private long[] hashes = new long[16];
+    private final List<T> values = new ArrayList<>();
+    private int size = 0;
+
+    // Immutable query view, rebuilt lazily after the index changes
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * Result of a nearest-neighbor query
+     */
+    public static class Match<T> {
+        public final long hash;
+        public final T value;
+        public final int distance;
+
+        Match(long hash, T value, int distance) {
+            this.hash = hash;
+            this.value = value;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Add a hash to the index (tables are rebuilt lazily on the next query)
+     */
+    public synchronized void add(long hash, T value) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        hashes[size++] = hash;
+        values.add(value);
+        snapshot = null;
+    }
+
+    /**
+     * Remove all entries
+     */
+    public synchronized void clear() {
+        hashes = new long[16];
+        values.clear();
+        size = 0;
+        snapshot = null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Build the band lookup tables (called automatically by queries when needed)
+     */
+    public void build() {
+        buildSnapshot();
+    }
+
+    private synchronized Snapshot<T> buildSnapshot() {
+        if (snapshot == null) {
+            snapshot = new Snapshot<>(Arrays.copyOf(hashes, size), new ArrayList<>(values));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Find the closest indexed hash within the given Hamming distance
+     * Safe to call from several threads at once
+     * @param hash Query hash
+     * @param maxDistance Maximum Hamming distance (inclusive)
+     * @return Closest match, or null if nothing is within range
+     */
+    public Match<T> findNearest(long hash, int maxDistance) {
+        Snapshot<T> current = snapshot;
+        if (current == null) {
+            current = buildSnapshot();
+        }
+        return maxDistance > MAX_INDEXED_DISTANCE
+            ? current.findNearestLinear(hash, maxDistance)
+            : current.findNearestIndexed(hash, maxDistance);
+    }
+
+    private static class Snapshot<T> {
+        final long[] hashes;
+        final List<T> values;
+        // Per band: sorted (bandValue << 32 | entryIndex)
+        final long[][] bandTables;
+
+        Snapshot(long[] hashes, List<T> values) {
+            this.hashes = hashes;
+            this.values = values;
+            this.bandTables = new long[BAND_COUNT][hashes.length];
+            for (int band = 0; band < BAND_COUNT; band++) {
+                long[] table = bandTables[band];
+                for (int i = 0; i < hashes.length; i++) {
+                    table[i] = (bandValue(hashes[i], band) << 32) | i;
+                }
+                Arrays.sort(table);
+            }
+        }
+
+        Match<T> findNearestIndexed(long hash, int maxDistance) {
+            int bestIndex = -1;
+            int bestDistance = maxDistance + 1;
+
+            for (int band = 0; band < BAND_COUNT && bestDistance > 0; band++) {
+                long[] table = bandTables[band];
+                long key = bandValue(hash, band);
+
+                for (int pos = lowerBound(table, key << 32); pos < table.length && (table[pos] >>> 32) == key; pos++) {
+                    int entryIndex = (int) table[pos];
+                    int distance = Long.bitCount(hashes[entryIndex] ^ hash);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        bestIndex = entryIndex;
+                    }
+                }
+            }
+
+            return toMatch(bestIndex, bestDistance);
+        }
+
+        Match<T> findNearestLinear(long hash, int maxDistance) {
+            int bestIndex = -1;
+            int bestDistance = maxDistance + 1;
+            for (int i = 0; i < hashes.length && bestDistance > 0; i++) {
+                int distance = Long.bitCount(hashes[i] ^ hash);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestIndex = i;
+                }
+            }
+            return toMatch(bestIndex, bestDistance);
+        }
+
+        private Match<T> toMatch(int index, int distance) {
+            return index >= 0 ? new Match<>(hashes[index], values.get(index), distance) : null;
+        }
+    }
+
+    private static long bandValue(long hash, int band) {
+        return (hash >>> (band * BAND_BITS)) & BAND_MASK;
+    }
+
+    private static int lowerBound(long[] table, long target) {
+        int low = 0;
+        int high = table.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (table[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
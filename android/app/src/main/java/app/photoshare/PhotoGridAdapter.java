@@ -1,6 +1,8 @@
 package app.photoshare;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,6 +11,8 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.CenterCrop;
@@ -16,19 +20,42 @@ import com.bumptech.glide.load.resource.bitmap.RoundedCorners;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
-    private List<SectionItem> items;  // Mixed list of section headers and photos
+    // Duplicate-check state per photo
+    private static final int STATUS_CHECKING = 0;
+    private static final int STATUS_NEW = 1;
+    private static final int STATUS_UPLOADED = 2;
+    
+    // Batch classification results are applied at most this often, so a fast pool doesn't diff per photo
+    private static final long RESULT_APPLY_INTERVAL_MS = 150;
+    
+    // Mixed list of section headers and photos, diffed on a background thread
+    private final AsyncListDiffer<SectionItem> items = new AsyncListDiffer<>(this, SECTION_DIFF_CALLBACK);
+    private List<PhotoItem> allPhotos;  // All photos in display order, independent of sections
     private Set<Long> selectedPhotoIds;
     private Set<String> uploadedPhotoIds;  // Basic duplicate detection (legacy)
     private EnhancedDuplicateDetector duplicateDetector;  // Enhanced duplicate detection
     private Context context;
     private OnSelectionChangedListener selectionListener;
     private boolean showPhotoInfo = false;
+    
+    // Enhanced detection runs off the UI thread; results are cached per photo ID
+    private final Map<Long, EnhancedDuplicateDetector.DuplicateResult> duplicateResults = new HashMap<>();
+    private final ConcurrentLinkedQueue<ClassifiedPhoto> pendingResults = new ConcurrentLinkedQueue<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable applyPendingResultsRunnable = this::applyPendingResults;
+    private boolean applyScheduled = false;
+    private final List<CompletableFuture<Void>> classificationBatches = new ArrayList<>();
+    private int classificationGeneration = 0;
 
     public interface OnSelectionChangedListener {
         void onSelectionChanged(int selectedCount);
@@ -36,70 +63,98 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
     public PhotoGridAdapter(Context context) {
         this.context = context;
-        this.items = new ArrayList<>();
+        this.allPhotos = new ArrayList<>();
         this.selectedPhotoIds = new HashSet<>();
         this.uploadedPhotoIds = new HashSet<>();
     }
 
     /**
      * Set photos and automatically organize into sections: New Photos first, Already Uploaded second
+     * With enhanced detection, photos not yet classified are shown right away in a "Checking"
+     * section and move into place as background checks finish
      * @param photos List of all photos to display
      */
     public void setPhotos(List<PhotoItem> photos) {
-        buildSections(photos);
-        notifyDataSetChanged();
+        this.allPhotos = photos != null ? new ArrayList<>(photos) : new ArrayList<>();
+        items.submitList(buildSections(allPhotos));
+        startClassification();
+    }
+    
+    /**
+     * Append a page of photos, keeping scroll position and earlier classification work
+     * @param photos Photos following the ones already shown
+     */
+    public void appendPhotos(List<PhotoItem> photos) {
+        if (photos == null || photos.isEmpty()) {
+            return;
+        }
+        allPhotos.addAll(photos);
+        items.submitList(buildSections(allPhotos));
+        classifyPhotos(photos);
     }
     
     /**
-     * Build sections from photos: "New Photos (n)" and "Already Uploaded (x)"
+     * Build sections from photos: "New Photos (n)", "Already Uploaded (x)" and, while enhanced
+     * detection is running, "Checking (c)"
      * Follows iOS implementation pattern
+     * @return New item list to submit; each photo carries its status for the diff
      */
-    private void buildSections(List<PhotoItem> photos) {
-        this.items = new ArrayList<>();
+    private List<SectionItem> buildSections(List<PhotoItem> photos) {
+        List<SectionItem> sections = new ArrayList<>();
         
         if (photos == null || photos.isEmpty()) {
             android.util.Log.d("PhotoGridAdapter", "📋 No photos to organize into sections");
-            return;
+            return sections;
         }
         
-        // Separate photos into new and uploaded
+        // Separate photos into new, uploaded and still being checked
         List<PhotoItem> newPhotos = new ArrayList<>();
         List<PhotoItem> uploadedPhotos = new ArrayList<>();
+        List<PhotoItem> checkingPhotos = new ArrayList<>();
         
         for (PhotoItem photo : photos) {
-            if (isPhotoUploaded(photo)) {
+            int status = getPhotoStatus(photo);
+            if (status == STATUS_UPLOADED) {
                 uploadedPhotos.add(photo);
-            } else {
+            } else if (status == STATUS_NEW) {
                 newPhotos.add(photo);
+            } else {
+                checkingPhotos.add(photo);
             }
         }
         
-        android.util.Log.d("PhotoGridAdapter", String.format("📋 Organizing %d photos: %d new, %d uploaded", 
-            photos.size(), newPhotos.size(), uploadedPhotos.size()));
+        android.util.Log.d("PhotoGridAdapter", String.format("📋 Organizing %d photos: %d new, %d uploaded, %d checking", 
+            photos.size(), newPhotos.size(), uploadedPhotos.size(), checkingPhotos.size()));
         
         // Add "New Photos" section first (iOS style)
-        if (!newPhotos.isEmpty()) {
-            items.add(new SectionItem("New Photos", newPhotos.size()));
-            for (PhotoItem photo : newPhotos) {
-                items.add(new SectionItem(photo));
-            }
-        }
+        addSection(sections, "New Photos", newPhotos, STATUS_NEW);
         
         // Add "Already Uploaded" section second (iOS style)
-        if (!uploadedPhotos.isEmpty()) {
-            items.add(new SectionItem("Already Uploaded", uploadedPhotos.size()));
-            for (PhotoItem photo : uploadedPhotos) {
-                items.add(new SectionItem(photo));
-            }
-        }
+        addSection(sections, "Already Uploaded", uploadedPhotos, STATUS_UPLOADED);
+        
+        // Photos still being classified go last and drain into the sections above
+        addSection(sections, "Checking", checkingPhotos, STATUS_CHECKING);
         
-        android.util.Log.d("PhotoGridAdapter", String.format("📋 Built %d items (%d sections + %d photos)", 
-            items.size(), (newPhotos.isEmpty() ? 0 : 1) + (uploadedPhotos.isEmpty() ? 0 : 1), photos.size()));
+        android.util.Log.d("PhotoGridAdapter", String.format("📋 Built %d items (%d photos)", 
+            sections.size(), photos.size()));
+        return sections;
+    }
+    
+    private static void addSection(List<SectionItem> sections, String title, List<PhotoItem> sectionPhotos, int status) {
+        if (sectionPhotos.isEmpty()) {
+            return;
+        }
+        sections.add(new SectionItem(title, sectionPhotos.size()));
+        for (PhotoItem photo : sectionPhotos) {
+            sections.add(new SectionItem(photo, status));
+        }
     }
 
     public void setUploadedPhotoIds(Set<String> uploadedIds) {
         this.uploadedPhotoIds = uploadedIds != null ? uploadedIds : new HashSet<>();
         this.duplicateDetector = null;  // Clear enhanced detector when using basic mode
+        cancelClassification();
+        duplicateResults.clear();
         rebuildSections();  // Rebuild sections with new duplicate detection
     }
     
@@ -110,7 +165,10 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
     public void setEnhancedDuplicateDetector(EnhancedDuplicateDetector detector) {
         this.duplicateDetector = detector;
         this.uploadedPhotoIds = new HashSet<>();  // Clear basic IDs when using enhanced mode
+        cancelClassification();
+        duplicateResults.clear();
         rebuildSections();  // Rebuild sections with new duplicate detection
+        startClassification();
         android.util.Log.d("PhotoGridAdapter", "📸 Enhanced duplicate detection enabled: " + 
             (detector != null ? detector.getDebugInfo() : "null"));
     }
@@ -119,25 +177,116 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
      * Rebuild sections from current photos using current duplicate detection method
      */
     private void rebuildSections() {
-        List<PhotoItem> currentPhotos = getAllPhotos();
-        buildSections(currentPhotos);
-        notifyDataSetChanged();
+        items.submitList(buildSections(allPhotos));
     }
     
     /**
-     * Extract all PhotoItems from current items list
-     * @return List of all PhotoItems currently displayed
+     * Classify every photo without a cached result on the detector's background pool
+     * Results are queued from worker threads and applied on the main thread in batches
      */
-    private List<PhotoItem> getAllPhotos() {
-        List<PhotoItem> photos = new ArrayList<>();
-        for (SectionItem item : items) {
-            if (item.isPhoto()) {
-                photos.add(item.getPhotoItem());
+    private void startClassification() {
+        cancelClassification();
+        classifyPhotos(allPhotos);
+    }
+    
+    /**
+     * Queue a classification batch for the given photos alongside any already running
+     */
+    private void classifyPhotos(List<PhotoItem> photos) {
+        if (duplicateDetector == null) {
+            return;
+        }
+        
+        List<PhotoItem> toCheck = new ArrayList<>();
+        for (PhotoItem photo : photos) {
+            if (!duplicateResults.containsKey(photo.getId())) {
+                toCheck.add(photo);
+            }
+        }
+        if (toCheck.isEmpty()) {
+            return;
+        }
+        
+        List<android.net.Uri> photoUris = new ArrayList<>(toCheck.size());
+        long[] fileSizes = new long[toCheck.size()];
+        for (int i = 0; i < toCheck.size(); i++) {
+            photoUris.add(getDetectionUri(toCheck.get(i)));
+            fileSizes[i] = toCheck.get(i).getSize();
+        }
+        
+        final int generation = classificationGeneration;
+        android.util.Log.d("PhotoGridAdapter", "🔍 Classifying " + toCheck.size() + " photos in background");
+        // Drop finished batches so the list only tracks work that can still be cancelled
+        for (java.util.Iterator<CompletableFuture<Void>> it = classificationBatches.iterator(); it.hasNext(); ) {
+            if (it.next().isDone()) {
+                it.remove();
             }
         }
-        return photos;
+        classificationBatches.add(duplicateDetector.checkForDuplicates(photoUris, fileSizes, (index, photoUri, result) -> {
+            pendingResults.add(new ClassifiedPhoto(generation, toCheck.get(index).getId(), result));
+            scheduleApplyPendingResults();
+        }));
     }
-
+    
+    private void cancelClassification() {
+        classificationGeneration++;
+        for (CompletableFuture<Void> batch : classificationBatches) {
+            batch.cancel(false);
+        }
+        classificationBatches.clear();
+        pendingResults.clear();
+    }
+    
+    private void scheduleApplyPendingResults() {
+        mainHandler.post(() -> {
+            if (!applyScheduled) {
+                applyScheduled = true;
+                mainHandler.postDelayed(applyPendingResultsRunnable, RESULT_APPLY_INTERVAL_MS);
+            }
+        });
+    }
+    
+    /**
+     * Move newly classified photos into their sections (main thread; the diff runs in the background)
+     */
+    private void applyPendingResults() {
+        applyScheduled = false;
+        
+        boolean changed = false;
+        boolean selectionChanged = false;
+        ClassifiedPhoto classified;
+        while ((classified = pendingResults.poll()) != null) {
+            if (classified.generation != classificationGeneration) {
+                continue; // Result from a cancelled batch
+            }
+            duplicateResults.put(classified.photoId, classified.result);
+            changed = true;
+            
+            // A photo picked while it was still unclassified can't stay selected once it's known to be uploaded
+            if (classified.result.isDuplicate() && selectedPhotoIds.remove(classified.photoId)) {
+                selectionChanged = true;
+            }
+        }
+        if (!changed) {
+            return;
+        }
+        
+        items.submitList(buildSections(allPhotos));
+        
+        if (selectionChanged && selectionListener != null) {
+            selectionListener.onSelectionChanged(selectedPhotoIds.size());
+        }
+    }
+    
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        // Stop hashing photos for a grid that's gone
+        cancelClassification();
+        mainHandler.removeCallbacks(applyPendingResultsRunnable);
+        applyScheduled = false;
+    }
+    
     public void setOnSelectionChangedListener(OnSelectionChangedListener listener) {
         this.selectionListener = listener;
     }
@@ -149,7 +298,7 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
     public List<PhotoItem> getSelectedPhotos() {
         List<PhotoItem> selected = new ArrayList<>();
-        for (SectionItem item : items) {
+        for (SectionItem item : items.getCurrentList()) {
             if (item.isPhoto()) {
                 PhotoItem photo = item.getPhotoItem();
                 if (selectedPhotoIds.contains(photo.getId())) {
@@ -186,7 +335,7 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        SectionItem item = items.get(position);
+        SectionItem item = items.getCurrentList().get(position);
         
         if (item.isHeader() && holder instanceof SectionHeaderViewHolder) {
             ((SectionHeaderViewHolder) holder).bind(item);
@@ -197,12 +346,12 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
 
     @Override
     public int getItemCount() {
-        return items.size();
+        return items.getCurrentList().size();
     }
     
     @Override
     public int getItemViewType(int position) {
-        return items.get(position).getType();
+        return items.getCurrentList().get(position).getType();
     }
     
     /**
@@ -277,9 +426,16 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             selectionIndicator.setVisibility(isSelected ? View.VISIBLE : View.GONE);
 
             // Update upload status with enhanced or basic duplicate detection
-            boolean isUploaded = isPhotoUploaded(photo);
+            int status = getPhotoStatus(photo);
             
-            if (isUploaded) {
+            if (status == STATUS_CHECKING) {
+                // Still being classified in the background: no badge yet
+                uploadedOverlay.setVisibility(View.GONE);
+                statusBackground.setVisibility(View.GONE);
+                ivUploadedCheck.setVisibility(View.GONE);
+                ivUploadIcon.setVisibility(View.GONE);
+                ivUploadStatus.setVisibility(View.GONE);
+            } else if (status == STATUS_UPLOADED) {
                 // Show gradient overlay for uploaded photos
                 uploadedOverlay.setVisibility(View.VISIBLE);
                 
@@ -320,12 +476,18 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
             int position = getAdapterPosition();
             if (position == RecyclerView.NO_POSITION) return;
 
-            SectionItem item = items.get(position);
+            SectionItem item = items.getCurrentList().get(position);
             if (!item.isPhoto()) return;  // Don't allow selection of headers
             
             PhotoItem photo = item.getPhotoItem();
             long photoId = photo.getId();
 
+            // Wait for the background duplicate check before allowing selection
+            if (getPhotoStatus(photo) == STATUS_CHECKING) {
+                Toast.makeText(context, "Still checking if this photo was already uploaded", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            
             // Check if photo is already uploaded using enhanced or basic detection
             if (isPhotoUploaded(photo)) {
                 // Show enhanced toast with duplicate reason
@@ -358,37 +520,39 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
      * @return true if photo is already uploaded
      */
     private boolean isPhotoUploaded(PhotoItem photo) {
+        return getPhotoStatus(photo) == STATUS_UPLOADED;
+    }
+    
+    /**
+     * Get a photo's duplicate-check status without doing any I/O
+     * Enhanced detection reads the cached background result; basic detection checks the ID set
+     * @param photo PhotoItem to check
+     * @return STATUS_CHECKING, STATUS_NEW or STATUS_UPLOADED
+     */
+    private int getPhotoStatus(PhotoItem photo) {
         if (duplicateDetector != null) {
-            // Use enhanced duplicate detection
-            try {
-                // Convert file path to content URI if needed
-                android.net.Uri photoUri;
-                if (photo.getPath() != null && photo.getPath().startsWith("/")) {
-                    // This is a file path, convert to content URI using the PhotoItem's URI
-                    photoUri = photo.getUri();
-                } else {
-                    // Already a URI string, parse it
-                    photoUri = android.net.Uri.parse(photo.getPath());
-                }
-                
-                EnhancedDuplicateDetector.DuplicateResult result = duplicateDetector.checkForDuplicate(photoUri);
-                
-                if (result.isDuplicate()) {
-                    android.util.Log.d("PhotoGridAdapter", String.format(
-                        "🔍 Enhanced duplicate detected: %s (%.1f%% similarity)", 
-                        photo.getDisplayName(), result.getSimilarity() * 100));
-                    return true;
-                }
-                return false;
-            } catch (Exception e) {
-                android.util.Log.w("PhotoGridAdapter", "Enhanced duplicate check failed, falling back to basic: " + e.getMessage());
-                // Fallback to basic detection
-                return uploadedPhotoIds.contains(String.valueOf(photo.getId()));
+            EnhancedDuplicateDetector.DuplicateResult result = duplicateResults.get(photo.getId());
+            if (result == null) {
+                return STATUS_CHECKING;
             }
-        } else {
-            // Use basic duplicate detection (legacy)
-            return uploadedPhotoIds.contains(String.valueOf(photo.getId()));
+            return result.isDuplicate() ? STATUS_UPLOADED : STATUS_NEW;
+        }
+        
+        // Use basic duplicate detection (legacy)
+        return uploadedPhotoIds.contains(String.valueOf(photo.getId())) ? STATUS_UPLOADED : STATUS_NEW;
+    }
+    
+    /**
+     * Get the URI used for enhanced duplicate detection
+     */
+    private android.net.Uri getDetectionUri(PhotoItem photo) {
+        // Convert file path to content URI if needed
+        if (photo.getPath() != null && photo.getPath().startsWith("/")) {
+            // This is a file path, convert to content URI using the PhotoItem's URI
+            return photo.getUri();
         }
+        // Already a URI string, parse it
+        return android.net.Uri.parse(photo.getPath());
     }
     
     /**
@@ -398,32 +562,57 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<RecyclerView.ViewHold
      */
     private String getUploadedPhotoMessage(PhotoItem photo) {
         if (duplicateDetector != null) {
-            try {
-                // Convert file path to content URI if needed
-                android.net.Uri photoUri;
-                if (photo.getPath() != null && photo.getPath().startsWith("/")) {
-                    // This is a file path, convert to content URI using the PhotoItem's URI
-                    photoUri = photo.getUri();
+            EnhancedDuplicateDetector.DuplicateResult result = duplicateResults.get(photo.getId());
+            if (result != null && result.isDuplicate()) {
+                if (result.getSimilarity() >= 1.0) {
+                    return "Exact duplicate already uploaded to this event";
                 } else {
-                    // Already a URI string, parse it
-                    photoUri = android.net.Uri.parse(photo.getPath());
-                }
-                
-                EnhancedDuplicateDetector.DuplicateResult result = duplicateDetector.checkForDuplicate(photoUri);
-                
-                if (result.isDuplicate()) {
-                    if (result.getSimilarity() >= 1.0) {
-                        return "Exact duplicate already uploaded to this event";
-                    } else {
-                        return String.format("Similar photo already uploaded (%.0f%% match)", result.getSimilarity() * 100);
-                    }
+                    return String.format("Similar photo already uploaded (%.0f%% match)", result.getSimilarity() * 100);
                 }
-            } catch (Exception e) {
-                android.util.Log.w("PhotoGridAdapter", "Error getting duplicate message: " + e.getMessage());
             }
         }
         
         // Fallback message
         return "Photo already uploaded to this event";
     }
+    
+    /**
+     * Duplicate-check result waiting to be applied on the main thread
+     */
+    private static class ClassifiedPhoto {
+        final int generation;
+        final long photoId;
+        final EnhancedDuplicateDetector.DuplicateResult result;
+        
+        ClassifiedPhoto(int generation, long photoId, EnhancedDuplicateDetector.DuplicateResult result) {
+            this.generation = generation;
+            this.photoId = photoId;
+            this.result = result;
+        }
+    }
+    
+    /**
+     * Diff callback matching headers by title and photos by ID
+     * A photo's contents change when its status changes (badge and overlay)
+     */
+    private static final DiffUtil.ItemCallback<SectionItem> SECTION_DIFF_CALLBACK = new DiffUtil.ItemCallback<SectionItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull SectionItem oldItem, @NonNull SectionItem newItem) {
+            if (oldItem.getType() != newItem.getType()) {
+                return false;
+            }
+            if (oldItem.isHeader()) {
+                return oldItem.getSectionTitle().equals(newItem.getSectionTitle());
+            }
+            return oldItem.getPhotoItem().getId() == newItem.getPhotoItem().getId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull SectionItem oldItem, @NonNull SectionItem newItem) {
+            if (oldItem.isHeader()) {
+                return oldItem.getSectionCount() == newItem.getSectionCount();
+            }
+            return oldItem.getStatus() == newItem.getStatus();
+        }
+    };
 }
\ No newline at end of file
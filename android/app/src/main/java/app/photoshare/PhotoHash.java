@@ -1,12 +1,29 @@
 package app.photoshare;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.net.Uri;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
 import android.util.Log;
+import android.util.Size;
+import androidx.exifinterface.media.ExifInterface;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class PhotoHash {
     private static final String TAG = "PhotoHash";
@@ -16,6 +33,76 @@ public class PhotoHash {
     private static final int DHASH_WIDTH = DHASH_SIZE + 1;
     private static final int DHASH_HEIGHT = DHASH_SIZE;
     
+    // Smallest edge we decode to before the final 9x8 resize; enough detail for a stable dHash
+    private static final int PERCEPTUAL_DECODE_MIN_EDGE = 64;
+    
+    // EXIF thumbnails are only trusted when they have the photo's aspect ratio; a letterboxed
+    // or cropped thumbnail would hash differently from the full image
+    private static final int EXIF_THUMBNAIL_MIN_EDGE = 32;
+    private static final double EXIF_THUMBNAIL_ASPECT_TOLERANCE = 0.05;
+    
+    /**
+     * Image data a perceptual hash was calculated from
+     * Every source is brought to display orientation (EXIF TAG_ORIENTATION applied) before
+     * hashing, but thumbnails are re-encoded and resampled by the camera or MediaStore, so a
+     * hash is only compared against hashes from the same source.
+     */
+    public enum PerceptualHashSource {
+        EXIF_THUMBNAIL,         // Thumbnail embedded in the EXIF header (image data never read)
+        MEDIA_STORE_THUMBNAIL,  // ContentResolver.loadThumbnail (API 29+)
+        SUBSAMPLED_DECODE       // BitmapFactory decode with inSampleSize
+    }
+    
+    /**
+     * Perceptual hash together with the image data it was calculated from
+     */
+    public static class PerceptualHash {
+        public final String hash;
+        public final PerceptualHashSource source;
+        
+        PerceptualHash(String hash, PerceptualHashSource source) {
+            this.hash = hash;
+            this.source = source;
+        }
+    }
+    
+    // Per-thread scratch buffers so hashing a batch of photos doesn't allocate per photo
+    private static final ThreadLocal<Bitmap> DHASH_SCRATCH_BITMAP = new ThreadLocal<Bitmap>() {
+        @Override
+        protected Bitmap initialValue() {
+            return Bitmap.createBitmap(DHASH_WIDTH, DHASH_HEIGHT, Bitmap.Config.ARGB_8888);
+        }
+    };
+    private static final ThreadLocal<int[]> DHASH_SCRATCH_PIXELS = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[DHASH_WIDTH * DHASH_HEIGHT];
+        }
+    };
+    private static final Paint DHASH_SCALE_PAINT = new Paint(Paint.FILTER_BITMAP_FLAG);
+    
+    // SHA-256 read sizes: large reads keep fast UFS storage busy and cut syscalls
+    private static final int CHANNEL_BUFFER_SIZE = 256 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    
+    // Per-thread digest and direct buffer, reused across every photo a hashing thread processes
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 unavailable", e);
+            }
+        }
+    };
+    private static final ThreadLocal<ByteBuffer> HASH_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+        }
+    };
+    
     /**
      * Calculate SHA-256 hash for a photo URI
      * @param context Android context for content resolver
@@ -23,50 +110,48 @@ public class PhotoHash {
      * @return SHA-256 hash as hex string, or null if failed
      */
     public static String calculateSHA256(Context context, Uri photoUri) {
+        byte[] hashBytes = calculateSHA256Digest(context, photoUri);
+        if (hashBytes == null) {
+            return null;
+        }
+        
+        String hash = HashCodec.toHex(hashBytes);
+        Log.d(TAG, "Hash: " + hash);
+        return hash;
+    }
+    
+    /**
+     * Calculate SHA-256 digest for a photo URI as raw bytes
+     * Lets callers compare against a Sha256HashSet without building a hex string
+     * @param context Android context for content resolver
+     * @param photoUri URI of the photo to hash
+     * @return 32-byte SHA-256 digest, or null if failed
+     */
+    public static byte[] calculateSHA256Digest(Context context, Uri photoUri) {
         try {
             Log.d(TAG, "Calculating SHA-256 for: " + photoUri);
             
-            // Open input stream from the photo URI
-            InputStream inputStream = context.getContentResolver().openInputStream(photoUri);
-            if (inputStream == null) {
-                Log.e(TAG, "Failed to open input stream for: " + photoUri);
-                return null;
-            }
-            
-            // Initialize SHA-256 message digest
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            
-            // Read file in chunks and update digest
-            byte[] buffer = new byte[8192]; // 8KB chunks
-            int bytesRead;
-            long totalBytes = 0;
+            MessageDigest digest = SHA256_DIGEST.get();
+            digest.reset();
             
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                digest.update(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
+            // Fast path: hash through a FileChannel for file URIs and descriptor-backed content URIs
+            long totalBytes = digestFileChannel(context, photoUri, digest);
+            if (totalBytes < 0) {
+                digest.reset();
+                totalBytes = digestInputStream(context, photoUri, digest);
+                if (totalBytes < 0) {
+                    Log.e(TAG, "Failed to open input stream for: " + photoUri);
+                    return null;
+                }
             }
             
-            inputStream.close();
-            
             // Get the hash bytes
             byte[] hashBytes = digest.digest();
             
-            // Convert to hex string
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            String hash = hexString.toString();
             Log.d(TAG, "SHA-256 calculated successfully");
             Log.d(TAG, "File size: " + totalBytes + " bytes");
-            Log.d(TAG, "Hash: " + hash);
             
-            return hash;
+            return hashBytes;
             
         } catch (Exception e) {
             Log.e(TAG, "Error calculating SHA-256 for " + photoUri + ": " + e.getMessage(), e);
@@ -74,6 +159,107 @@ public class PhotoHash {
         }
     }
     
+    /**
+     * Feed a photo to the digest through a FileChannel and a per-thread direct buffer
+     * @return Bytes hashed, or -1 if the URI isn't backed by a seekable file descriptor
+     */
+    private static long digestFileChannel(Context context, Uri photoUri, MessageDigest digest) throws IOException {
+        FileInputStream fileStream;
+        ParcelFileDescriptor descriptor = null;
+        
+        if (ContentResolver.SCHEME_FILE.equals(photoUri.getScheme()) && photoUri.getPath() != null) {
+            fileStream = new FileInputStream(photoUri.getPath());
+        } else {
+            try {
+                descriptor = context.getContentResolver().openFileDescriptor(photoUri, "r");
+            } catch (FileNotFoundException | SecurityException e) {
+                return -1;
+            }
+            if (descriptor == null) {
+                return -1;
+            }
+            fileStream = new FileInputStream(descriptor.getFileDescriptor());
+        }
+        
+        try (FileChannel channel = fileStream.getChannel()) {
+            ByteBuffer buffer = HASH_BUFFER.get();
+            long totalBytes = 0;
+            buffer.clear();
+            int bytesRead;
+            while ((bytesRead = channel.read(buffer)) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+                totalBytes += bytesRead;
+            }
+            return totalBytes;
+        } finally {
+            fileStream.close();
+            if (descriptor != null) {
+                descriptor.close();
+            }
+        }
+    }
+    
+    /**
+     * Feed a photo to the digest through a plain InputStream (providers without file descriptors)
+     * @return Bytes hashed, or -1 if the stream couldn't be opened
+     */
+    private static long digestInputStream(Context context, Uri photoUri, MessageDigest digest) throws IOException {
+        try (InputStream inputStream = context.getContentResolver().openInputStream(photoUri)) {
+            if (inputStream == null) {
+                return -1;
+            }
+            
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            int bytesRead;
+            long totalBytes = 0;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, bytesRead);
+                totalBytes += bytesRead;
+            }
+            return totalBytes;
+        }
+    }
+    
+    /**
+     * Split a raw SHA-256 digest into its four big-endian 64-bit words
+     * @param hashBytes 32-byte SHA-256 digest
+     * @return Four longs, matching the layout used by Sha256HashSet
+     */
+    public static long[] toDigestWords(byte[] hashBytes) {
+        return new long[] {
+            HashCodec.readLong(hashBytes, 0),
+            HashCodec.readLong(hashBytes, 8),
+            HashCodec.readLong(hashBytes, 16),
+            HashCodec.readLong(hashBytes, 24)
+        };
+    }
+    
+    /**
+     * Calculate SHA-256 hash for a MediaStore photo, consulting the persistent hash index first
+     * Only photos that are new or changed since they were last hashed are read from storage
+     * @param context Android context for content resolver
+     * @param photoUri URI of the photo to hash
+     * @param mediaId MediaStore _ID of the photo
+     * @param dateModified MediaStore DATE_MODIFIED of the photo (seconds)
+     * @param size MediaStore SIZE of the photo in bytes
+     * @return SHA-256 hash as hex string, or null if failed
+     */
+    public static String calculateSHA256(Context context, Uri photoUri, long mediaId, long dateModified, long size) {
+        PhotoHashIndex hashIndex = PhotoHashIndex.getInstance(context);
+        String cachedHash = hashIndex.getSha256(mediaId, dateModified, size);
+        if (cachedHash != null) {
+            return cachedHash;
+        }
+
+        String hash = calculateSHA256(context, photoUri);
+        if (hash != null) {
+            hashIndex.putSha256(mediaId, dateModified, size, hash);
+        }
+        return hash;
+    }
+
     /**
      * Calculate perceptual hash (dHash) for visual similarity detection
      * Based on iOS implementation: difference hash on 8x9 pixel grid
@@ -82,41 +268,96 @@ public class PhotoHash {
      * @return 64-bit perceptual hash as hex string, or null if failed
      */
     public static String calculatePerceptualHash(Context context, Uri photoUri) {
+        PerceptualHash perceptualHash = calculatePerceptualHashWithSource(context, photoUri);
+        return perceptualHash != null ? perceptualHash.hash : null;
+    }
+    
+    /**
+     * Calculate perceptual hash (dHash) and report which image data it came from
+     * Prefers the EXIF thumbnail, then the MediaStore thumbnail, then a subsampled decode
+     * @param context Android context for content resolver
+     * @param photoUri URI of the photo to hash
+     * @return Hash and source, or null if failed
+     */
+    public static PerceptualHash calculatePerceptualHashWithSource(Context context, Uri photoUri) {
+        return calculatePerceptualHashWithSource(context, photoUri, EnumSet.allOf(PerceptualHashSource.class));
+    }
+    
+    /**
+     * Calculate perceptual hash (dHash) from the most preferred of the allowed sources
+     * @param context Android context for content resolver
+     * @param photoUri URI of the photo to hash
+     * @param allowedSources Sources that may be used, e.g. those the hashes it's compared to came from
+     * @return Hash and source, or null if failed or no allowed source is available
+     */
+    public static PerceptualHash calculatePerceptualHashWithSource(Context context, Uri photoUri,
+                                                                   Set<PerceptualHashSource> allowedSources) {
+        if (allowedSources.isEmpty()) {
+            return null;
+        }
         try {
             Log.d(TAG, "Calculating perceptual hash for: " + photoUri);
             
-            // Load and resize image to 9x8 pixels
-            InputStream inputStream = context.getContentResolver().openInputStream(photoUri);
-            if (inputStream == null) {
-                Log.e(TAG, "Failed to open input stream for perceptual hash: " + photoUri);
-                return null;
-            }
+            // Load a small version of the image instead of the full-resolution bitmap
+            // All sources end up in display orientation: MediaStore thumbnails already are,
+            // the EXIF thumbnail and the decode are rotated by TAG_ORIENTATION
+            ContentResolver resolver = context.getContentResolver();
+            ExifInterface exif = readExif(resolver, photoUri);
+            int orientation = exif != null
+                ? exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)
+                : ExifInterface.ORIENTATION_NORMAL;
             
-            Bitmap originalBitmap = BitmapFactory.decodeStream(inputStream);
-            inputStream.close();
-            
-            if (originalBitmap == null) {
-                Log.e(TAG, "Failed to decode bitmap for perceptual hash: " + photoUri);
+            PerceptualHashSource source = PerceptualHashSource.EXIF_THUMBNAIL;
+            Bitmap sourceBitmap = exif != null && allowedSources.contains(source)
+                ? decodeExifThumbnail(exif, photoUri) : null;
+            if (sourceBitmap == null) {
+                source = PerceptualHashSource.MEDIA_STORE_THUMBNAIL;
+                if (allowedSources.contains(source)) {
+                    sourceBitmap = loadMediaStoreThumbnail(resolver, photoUri);
+                }
+            } else {
+                sourceBitmap = applyExifOrientation(sourceBitmap, orientation);
+            }
+            if (sourceBitmap == null && allowedSources.contains(PerceptualHashSource.SUBSAMPLED_DECODE)) {
+                source = PerceptualHashSource.SUBSAMPLED_DECODE;
+                sourceBitmap = decodeSubsampled(resolver, photoUri);
+                if (sourceBitmap != null) {
+                    sourceBitmap = applyExifOrientation(sourceBitmap, orientation);
+                }
+            }
+            if (sourceBitmap == null) {
+                if (allowedSources.contains(PerceptualHashSource.SUBSAMPLED_DECODE)) {
+                    Log.e(TAG, "Failed to decode bitmap for perceptual hash: " + photoUri);
+                } else {
+                    Log.d(TAG, "No thumbnail among " + allowedSources + " for perceptual hash: " + photoUri);
+                }
                 return null;
             }
             
-            // Resize to 9x8 pixels for difference hash
-            Bitmap resizedBitmap = Bitmap.createScaledBitmap(originalBitmap, DHASH_WIDTH, DHASH_HEIGHT, true);
-            originalBitmap.recycle();
+            // Resize to 9x8 pixels for difference hash into the pooled scratch bitmap
+            Bitmap resizedBitmap = DHASH_SCRATCH_BITMAP.get();
+            resizedBitmap.eraseColor(0);
+            Canvas canvas = new Canvas(resizedBitmap);
+            canvas.drawBitmap(sourceBitmap,
+                new Rect(0, 0, sourceBitmap.getWidth(), sourceBitmap.getHeight()),
+                new Rect(0, 0, DHASH_WIDTH, DHASH_HEIGHT),
+                DHASH_SCALE_PAINT);
+            sourceBitmap.recycle();
+            
+            // Read all 72 pixels in one call instead of per-pixel getPixel
+            int[] pixels = DHASH_SCRATCH_PIXELS.get();
+            resizedBitmap.getPixels(pixels, 0, DHASH_WIDTH, 0, 0, DHASH_WIDTH, DHASH_HEIGHT);
             
             // Convert to grayscale and calculate difference hash
             long hash = 0;
             int bitPosition = 0;
             
             for (int y = 0; y < DHASH_HEIGHT; y++) {
+                int rowOffset = y * DHASH_WIDTH;
                 for (int x = 0; x < DHASH_SIZE; x++) {
-                    // Get adjacent pixels
-                    int leftPixel = resizedBitmap.getPixel(x, y);
-                    int rightPixel = resizedBitmap.getPixel(x + 1, y);
-                    
-                    // Convert to grayscale (simple average)
-                    int leftGray = getGrayscale(leftPixel);
-                    int rightGray = getGrayscale(rightPixel);
+                    // Convert adjacent pixels to grayscale (simple average)
+                    int leftGray = getGrayscale(pixels[rowOffset + x]);
+                    int rightGray = getGrayscale(pixels[rowOffset + x + 1]);
                     
                     // Set bit if left pixel is brighter than right pixel
                     if (leftGray > rightGray) {
@@ -127,13 +368,11 @@ public class PhotoHash {
                 }
             }
             
-            resizedBitmap.recycle();
-            
             // Convert to hex string (16 characters for 64-bit hash)
             String hashString = String.format("%016x", hash);
             
-            Log.d(TAG, "Perceptual hash calculated successfully: " + hashString);
-            return hashString;
+            Log.d(TAG, "Perceptual hash calculated successfully from " + source + ": " + hashString);
+            return new PerceptualHash(hashString, source);
             
         } catch (Exception e) {
             Log.e(TAG, "Error calculating perceptual hash for " + photoUri + ": " + e.getMessage(), e);
@@ -141,6 +380,167 @@ public class PhotoHash {
         }
     }
     
+    /**
+     * Parse the photo's EXIF header
+     * ExifInterface stops parsing at the start of the compressed image data, so only the
+     * header segments are read from storage
+     * @return Parsed header, or null if the photo has none or can't be read
+     */
+    private static ExifInterface readExif(ContentResolver resolver, Uri photoUri) {
+        try (InputStream inputStream = resolver.openInputStream(photoUri)) {
+            return inputStream != null ? new ExifInterface(inputStream) : null;
+        } catch (Exception e) {
+            Log.w(TAG, "EXIF unavailable for " + photoUri + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Decode the thumbnail embedded in the photo's EXIF header (stored orientation, not rotated)
+     * @return Thumbnail bitmap (caller recycles), or null if there's no usable thumbnail
+     */
+    private static Bitmap decodeExifThumbnail(ExifInterface exif, Uri photoUri) {
+        try {
+            if (!exif.hasThumbnail()) {
+                return null;
+            }
+            Bitmap thumbnail = exif.getThumbnailBitmap();
+            if (thumbnail == null) {
+                return null;
+            }
+            
+            int imageWidth = exif.getAttributeInt(ExifInterface.TAG_PIXEL_X_DIMENSION,
+                exif.getAttributeInt(ExifInterface.TAG_IMAGE_WIDTH, 0));
+            int imageHeight = exif.getAttributeInt(ExifInterface.TAG_PIXEL_Y_DIMENSION,
+                exif.getAttributeInt(ExifInterface.TAG_IMAGE_LENGTH, 0));
+            if (!isUsableThumbnail(thumbnail.getWidth(), thumbnail.getHeight(), imageWidth, imageHeight)) {
+                Log.d(TAG, "EXIF thumbnail " + thumbnail.getWidth() + "x" + thumbnail.getHeight() +
+                    " doesn't match image " + imageWidth + "x" + imageHeight + ", decoding instead");
+                thumbnail.recycle();
+                return null;
+            }
+            return thumbnail;
+        } catch (Exception e) {
+            Log.w(TAG, "EXIF thumbnail unavailable for " + photoUri + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Check that a thumbnail is large enough and has the same aspect ratio as the full image
+     * Both are in stored orientation, so a thumbnail with swapped edges was saved rotated
+     * differently from the image and is rejected rather than squeezed into the hash grid
+     */
+    private static boolean isUsableThumbnail(int thumbWidth, int thumbHeight, int imageWidth, int imageHeight) {
+        if (Math.min(thumbWidth, thumbHeight) < EXIF_THUMBNAIL_MIN_EDGE || imageWidth <= 0 || imageHeight <= 0) {
+            return false;
+        }
+        double thumbAspect = (double) thumbWidth / thumbHeight;
+        double imageAspect = (double) imageWidth / imageHeight;
+        return Math.abs(thumbAspect / imageAspect - 1.0) <= EXIF_THUMBNAIL_ASPECT_TOLERANCE;
+    }
+    
+    /**
+     * Rotate/flip a stored-orientation bitmap into display orientation
+     * @return Transformed bitmap (the input is recycled if a new one was created)
+     */
+    private static Bitmap applyExifOrientation(Bitmap bitmap, int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(270);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(270);
+                matrix.postScale(-1, 1);
+                break;
+            default:
+                return bitmap;
+        }
+        Bitmap oriented = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, false);
+        if (oriented != bitmap) {
+            bitmap.recycle();
+        }
+        return oriented;
+    }
+    
+    /**
+     * Load the MediaStore thumbnail for content URIs on API 29+
+     * @return Small bitmap (caller recycles), or null if unavailable
+     */
+    private static Bitmap loadMediaStoreThumbnail(ContentResolver resolver, Uri photoUri) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+                || !ContentResolver.SCHEME_CONTENT.equals(photoUri.getScheme())) {
+            return null;
+        }
+        try {
+            return resolver.loadThumbnail(photoUri,
+                new Size(PERCEPTUAL_DECODE_MIN_EDGE, PERCEPTUAL_DECODE_MIN_EDGE), null);
+        } catch (Exception e) {
+            Log.w(TAG, "Thumbnail unavailable, falling back to subsampled decode: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Decode a small bitmap by reading the image bounds first and decoding with the largest
+     * inSampleSize that keeps both edges above PERCEPTUAL_DECODE_MIN_EDGE
+     * @return Small bitmap (caller recycles), or null if decoding failed
+     */
+    private static Bitmap decodeSubsampled(ContentResolver resolver, Uri photoUri) throws Exception {
+        // Pass 1: read dimensions only
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream boundsStream = resolver.openInputStream(photoUri)) {
+            if (boundsStream == null) {
+                Log.e(TAG, "Failed to open input stream for perceptual hash: " + photoUri);
+                return null;
+            }
+            BitmapFactory.decodeStream(boundsStream, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        
+        // Pass 2: decode at a power-of-two subsample
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, PERCEPTUAL_DECODE_MIN_EDGE);
+        options.inJustDecodeBounds = false;
+        try (InputStream inputStream = resolver.openInputStream(photoUri)) {
+            if (inputStream == null) {
+                Log.e(TAG, "Failed to open input stream for perceptual hash: " + photoUri);
+                return null;
+            }
+            return BitmapFactory.decodeStream(inputStream, null, options);
+        }
+    }
+    
+    /**
+     * Largest power-of-two sample size that keeps both edges at least minEdge pixels
+     */
+    private static int calculateInSampleSize(int width, int height, int minEdge) {
+        int inSampleSize = 1;
+        while ((width / (inSampleSize * 2)) >= minEdge && (height / (inSampleSize * 2)) >= minEdge) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+    
     /**
      * Convert RGB pixel to grayscale using simple average method
      * @param pixel RGB pixel value
@@ -161,15 +561,8 @@ public class PhotoHash {
      * @return Hamming distance (0-64)
      */
     public static int calculateHammingDistance(String hash1, String hash2) {
-        if (hash1 == null || hash2 == null || hash1.length() != hash2.length()) {
-            return Integer.MAX_VALUE; // Invalid comparison
-        }
-        
         try {
-            long value1 = Long.parseUnsignedLong(hash1, 16);
-            long value2 = Long.parseUnsignedLong(hash2, 16);
-            long xor = value1 ^ value2;
-            return Long.bitCount(xor);
+            return HashCodec.hammingDistance(hash1, hash2);
         } catch (NumberFormatException e) {
             Log.e(TAG, "Error calculating Hamming distance: " + e.getMessage());
             return Integer.MAX_VALUE;
@@ -189,9 +582,16 @@ public class PhotoHash {
             return 0.0;
         }
         
-        // Convert Hamming distance to similarity percentage
-        // 64 bits total, so similarity = (64 - distance) / 64
-        return (64.0 - hammingDistance) / 64.0;
+        return calculateSimilarity(hammingDistance);
+    }
+    
+    /**
+     * Convert a Hamming distance between two 64-bit perceptual hashes to a similarity
+     * @param hammingDistance Hamming distance (0-64)
+     * @return Similarity percentage (0.0 - 1.0)
+     */
+    public static double calculateSimilarity(int hammingDistance) {
+        return HashCodec.similarity(hammingDistance);
     }
     
     /**
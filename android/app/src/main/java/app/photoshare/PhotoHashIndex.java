@@ -0,0 +1,112 @@
+package app.photoshare;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+/**
+ * Persistent on-device index of photo SHA-256 hashes
+ * Keyed by MediaStore identity (_ID + DATE_MODIFIED + SIZE) so rescans only
+ * re-read photos that are new or have changed since they were last hashed
+ */
+public class PhotoHashIndex extends SQLiteOpenHelper {
+    private static final String TAG = "PhotoHashIndex";
+    private static final String DATABASE_NAME = "photo_hash_index.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_HASHES = "photo_hashes";
+    private static final String COLUMN_MEDIA_ID = "media_id";
+    private static final String COLUMN_DATE_MODIFIED = "date_modified";
+    private static final String COLUMN_SIZE = "size";
+    private static final String COLUMN_SHA256 = "sha256";
+    private static final String COLUMN_HASHED_AT = "hashed_at";
+
+    private static PhotoHashIndex instance;
+
+    private PhotoHashIndex(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+        // Scans look up hashes from several threads while new hashes are written
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    public static synchronized PhotoHashIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new PhotoHashIndex(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_HASHES + " (" +
+            COLUMN_MEDIA_ID + " INTEGER PRIMARY KEY, " +
+            COLUMN_DATE_MODIFIED + " INTEGER NOT NULL, " +
+            COLUMN_SIZE + " INTEGER NOT NULL, " +
+            COLUMN_SHA256 + " TEXT NOT NULL, " +
+            COLUMN_HASHED_AT + " INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Index is a pure cache - rebuilding it only costs a rescan
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_HASHES);
+        onCreate(db);
+    }
+
+    /**
+     * Look up a previously calculated SHA-256 for a MediaStore row
+     * @param mediaId MediaStore _ID
+     * @param dateModified MediaStore DATE_MODIFIED (seconds)
+     * @param size MediaStore SIZE in bytes
+     * @return Cached hash, or null if the photo is new or changed since it was hashed
+     */
+    public String getSha256(long mediaId, long dateModified, long size) {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + COLUMN_SHA256 + " FROM " + TABLE_HASHES +
+                " WHERE " + COLUMN_MEDIA_ID + " = ? AND " + COLUMN_DATE_MODIFIED + " = ? AND " + COLUMN_SIZE + " = ?",
+                new String[] { String.valueOf(mediaId), String.valueOf(dateModified), String.valueOf(size) })) {
+            if (cursor.moveToFirst()) {
+                return cursor.getString(0);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Hash index lookup failed for media " + mediaId + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Record the SHA-256 for a MediaStore row, replacing any stale entry for the same _ID
+     */
+    public void putSha256(long mediaId, long dateModified, long size, String sha256) {
+        if (sha256 == null) {
+            return;
+        }
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_MEDIA_ID, mediaId);
+            values.put(COLUMN_DATE_MODIFIED, dateModified);
+            values.put(COLUMN_SIZE, size);
+            values.put(COLUMN_SHA256, sha256);
+            values.put(COLUMN_HASHED_AT, System.currentTimeMillis());
+            getWritableDatabase().insertWithOnConflict(TABLE_HASHES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to store hash for media " + mediaId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get number of indexed photos for debugging
+     */
+    public long getEntryCount() {
+        try {
+            return DatabaseUtils.queryNumEntries(getReadableDatabase(), TABLE_HASHES);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to count hash index entries: " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package app.photoshare;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.PowerManager;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Producer/consumer pipeline for hashing scanned photos in parallel
+ * The producer (cursor thread) submits lightweight MediaRecords, SHA-256 hashes are calculated
+ * on a shared executor (AutoUploadExecutors.cpu() by default) with at most workerCount running
+ * at once, and results are delivered back on the producer thread in submission order. The
+ * number of in-flight records is capped so a long cursor walk blocks instead of queueing the
+ * whole event into memory.
+ */
+public class PhotoHashPipeline implements AutoCloseable {
+    private static final String TAG = "PhotoHashPipeline";
+
+    // Hashing is storage bound past a few threads, so more workers only add contention
+    private static final int MAX_WORKERS = 4;
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+
+    /**
+     * Receives hash results in the order records were submitted
+     */
+    public interface HashResultListener {
+        /**
+         * Records whose photo couldn't be read are logged and not delivered
+         * @param record Record that was hashed
+         * @param hash SHA-256 hex hash, or null if the record was passed through submitDeferred
+         */
+        void onHashed(MediaRecord record, String hash);
+    }
+
+    private final Context context;
+    private final HashResultListener listener;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final ArrayDeque<PendingHash> inFlight = new ArrayDeque<>();
+
+    // One chain per worker: a record is hashed after the one submitted workerCount records
+    // before it, so no more than workerCount hashes run at once on the shared executor
+    private final CompletableFuture<?>[] lanes;
+    private int nextLane = 0;
+
+    public PhotoHashPipeline(Context context, HashResultListener listener) {
+        this(context, AutoUploadExecutors.cpu(), recommendedWorkerCount(context), listener);
+    }
+
+    public PhotoHashPipeline(Context context, Executor executor, int workerCount, HashResultListener listener) {
+        this.context = context.getApplicationContext();
+        this.listener = listener;
+        this.executor = executor;
+        this.maxInFlight = workerCount * IN_FLIGHT_PER_WORKER;
+        this.lanes = new CompletableFuture<?>[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            lanes[i] = CompletableFuture.completedFuture(null);
+        }
+        Log.d(TAG, "🧵 Hash pipeline started with " + workerCount + " workers (max " + maxInFlight + " in flight)");
+    }
+
+    /**
+     * Pick a worker count from the core count and current thermal state
+     * @param context Android context for PowerManager
+     * @return Number of hashing workers to use (at least 1)
+     */
+    public static int recommendedWorkerCount(Context context) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        // Leave one core for the UI thread and the cursor walk
+        int workerCount = Math.max(1, Math.min(MAX_WORKERS, cores - 1));
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            if (powerManager != null) {
+                int thermalStatus = powerManager.getCurrentThermalStatus();
+                if (thermalStatus >= PowerManager.THERMAL_STATUS_SEVERE) {
+                    workerCount = 1;
+                } else if (thermalStatus >= PowerManager.THERMAL_STATUS_MODERATE) {
+                    workerCount = Math.max(1, workerCount / 2);
+                }
+                Log.d(TAG, "🌡️ Thermal status " + thermalStatus + " -> " + workerCount + " hash workers");
+            }
+        }
+
+        return workerCount;
+    }
+
+    /**
+     * Submit a record for hashing (called from the producer thread)
+     * Blocks while the pipeline is full, delivering completed results in order as it drains
+     */
+    public void submit(MediaRecord record) throws InterruptedException {
+        while (inFlight.size() >= maxInFlight) {
+            deliverHead();
+        }
+
+        int lane = nextLane;
+        nextLane = (nextLane + 1) % lanes.length;
+        CompletableFuture<String> future = lanes[lane]
+            .handle((result, error) -> null)
+            .thenApplyAsync(ignored -> hashRecord(record), executor);
+        lanes[lane] = future;
+        inFlight.addLast(new PendingHash(record, future, false));
+
+        // Deliver anything already finished without waiting
+        while (!inFlight.isEmpty() && inFlight.peekFirst().future.isDone()) {
+            deliverHead();
+        }
+    }
+
+    /**
+     * Pass a record through without hashing it, keeping its place in the delivery order
+     * Used when a cheap check already settled the record and the full hash can wait for upload
+     */
+    public void submitDeferred(MediaRecord record) throws InterruptedException {
+        while (inFlight.size() >= maxInFlight) {
+            deliverHead();
+        }
+
+        inFlight.addLast(new PendingHash(record, CompletableFuture.completedFuture(null), true));
+
+        while (!inFlight.isEmpty() && inFlight.peekFirst().future.isDone()) {
+            deliverHead();
+        }
+    }
+
+    /**
+     * Wait for all submitted records and deliver their remaining results in order
+     */
+    public void finish() throws InterruptedException {
+        while (!inFlight.isEmpty()) {
+            deliverHead();
+        }
+    }
+
+    /**
+     * Abandon any records still in flight (the shared executor keeps running)
+     */
+    @Override
+    public void close() {
+        for (PendingHash pending : inFlight) {
+            pending.future.cancel(true);
+        }
+        inFlight.clear();
+    }
+
+    private void deliverHead() throws InterruptedException {
+        PendingHash pending = inFlight.pollFirst();
+        if (pending == null) {
+            return;
+        }
+
+        String hash;
+        try {
+            hash = pending.future.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "❌ Hashing failed for " + pending.record.filePath + ": " + e.getCause());
+            return;
+        }
+        if (hash == null && !pending.deferred) {
+            // calculateSHA256 already logged why the photo couldn't be read
+            return;
+        }
+        listener.onHashed(pending.record, hash);
+    }
+
+    private String hashRecord(MediaRecord record) {
+        Uri photoUri = Uri.fromFile(new File(record.filePath));
+        return PhotoHash.calculateSHA256(context, photoUri, record.id, record.dateModified, record.size);
+    }
+
+    private static class PendingHash {
+        final MediaRecord record;
+        final Future<String> future;
+        final boolean deferred;
+
+        PendingHash(MediaRecord record, Future<String> future, boolean deferred) {
+            this.record = record;
+            this.future = future;
+            this.deferred = deferred;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.json.JSONObject;
 public class PhotoIdentifier {
     private String hash;                    // SHA-256 file hash (primary)
     private String perceptualHash;          // Visual similarity hash (dHash)
+    private PhotoHash.PerceptualHashSource perceptualHashSource = PhotoHash.PerceptualHashSource.SUBSAMPLED_DECODE; // Image data the dHash came from
     private String originalTimestamp;       // Original photo timestamp
     private long fileSize;                  // File size in bytes
     private String fileName;                // Original filename
@@ -30,6 +31,7 @@ public class PhotoIdentifier {
         try {
             this.hash = json.optString("hash", null);
             this.perceptualHash = json.optString("perceptualHash", null);
+            this.perceptualHashSource = parsePerceptualHashSource(json.optString("perceptualHashSource", null));
             this.originalTimestamp = json.optString("originalTimestamp", null);
             this.fileSize = json.optLong("fileSize", 0);
             this.fileName = json.optString("fileName", null);
@@ -48,6 +50,7 @@ public class PhotoIdentifier {
     // Getters
     public String getHash() { return hash; }
     public String getPerceptualHash() { return perceptualHash; }
+    public PhotoHash.PerceptualHashSource getPerceptualHashSource() { return perceptualHashSource; }
     public String getOriginalTimestamp() { return originalTimestamp; }
     public long getFileSize() { return fileSize; }
     public String getFileName() { return fileName; }
@@ -61,6 +64,7 @@ public class PhotoIdentifier {
     // Setters
     public void setHash(String hash) { this.hash = hash; }
     public void setPerceptualHash(String perceptualHash) { this.perceptualHash = perceptualHash; }
+    public void setPerceptualHashSource(PhotoHash.PerceptualHashSource perceptualHashSource) { this.perceptualHashSource = perceptualHashSource; }
     public void setOriginalTimestamp(String originalTimestamp) { this.originalTimestamp = originalTimestamp; }
     public void setFileSize(long fileSize) { this.fileSize = fileSize; }
     public void setFileName(String fileName) { this.fileName = fileName; }
@@ -80,6 +84,24 @@ public class PhotoIdentifier {
                (perceptualHash != null && !perceptualHash.isEmpty());
     }
     
+    /**
+     * Map the API's perceptualHashSource to a PhotoHash source
+     * Hashes without one were calculated by the web uploader from the full image, which is
+     * what a subsampled decode reproduces.
+     * @param value "exif_thumbnail", "media_store_thumbnail", "subsampled_decode" or null
+     * @return Source, SUBSAMPLED_DECODE if missing or unknown
+     */
+    static PhotoHash.PerceptualHashSource parsePerceptualHashSource(String value) {
+        if (value != null) {
+            for (PhotoHash.PerceptualHashSource source : PhotoHash.PerceptualHashSource.values()) {
+                if (source.name().equalsIgnoreCase(value)) {
+                    return source;
+                }
+            }
+        }
+        return PhotoHash.PerceptualHashSource.SUBSAMPLED_DECODE;
+    }
+    
     /**
      * Get display name for debugging
      * @return Human-readable identifier
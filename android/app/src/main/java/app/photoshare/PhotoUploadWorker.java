@@ -6,10 +6,12 @@ import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.database.Cursor;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Build;
+import android.provider.MediaStore;
 import android.util.Base64;
 import android.util.Log;
 
@@ -29,7 +31,6 @@ import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.List;
@@ -123,24 +124,19 @@ public class PhotoUploadWorker extends Worker {
                 // Show individual notification with thumbnail
                 showPhotoUploadNotification(photo, i + 1, photos.size(), 0);
                 
-                // Read photo file as bytes
-                byte[] photoData = readPhotoAsBytes(photo.getUri());
-                if (photoData == null) {
-                    Log.e(TAG, "❌ Failed to read photo data for: " + photo.getDisplayName());
-                    failed++;
-                    updateOverlayPhotoStatus(queueId, photo.getDisplayName(), photo.getUri(), "failed", 0);
-                    showPhotoUploadNotification(photo, i + 1, photos.size(), -1);
-                    continue;
-                }
+                // Captured before streaming so the recorded hash can't outlive a later edit
+                long dateModified = queryDateModified(photo.getUri());
                 
                 // Update overlay - uploading in progress  
                 updateOverlayPhotoStatus(queueId, photo.getDisplayName(), photo.getUri(), "uploading", 50);
                 
-                // Upload using multipart API
-                boolean success = apiClient.uploadPhoto(eventId, photo, photoData, jwtToken);
+                // Upload using multipart API, streaming and hashing the file in one read
+                String uploadedHash = apiClient.uploadPhotoStreaming(eventId, photo, jwtToken);
+                boolean success = uploadedHash != null;
                 
                 if (success) {
                     Log.d(TAG, "✅ Successfully uploaded: " + photo.getDisplayName());
+                    recordUploadedHash(eventId, photo, dateModified, uploadedHash);
                     completed++;
                     updateOverlayPhotoStatus(queueId, photo.getDisplayName(), photo.getUri(), "completed", 100);
                     showPhotoUploadNotification(photo, i + 1, photos.size(), 100);
@@ -154,10 +150,12 @@ public class PhotoUploadWorker extends Worker {
                     } catch (InterruptedException ignored) {}
                     
                     // Retry once
-                    boolean retrySuccess = apiClient.uploadPhoto(eventId, photo, photoData, jwtToken);
+                    uploadedHash = apiClient.uploadPhotoStreaming(eventId, photo, jwtToken);
+                    boolean retrySuccess = uploadedHash != null;
                     
                     if (retrySuccess) {
                         Log.d(TAG, "✅ Retry successful for: " + photo.getDisplayName());
+                        recordUploadedHash(eventId, photo, dateModified, uploadedHash);
                         completed++;
                         updateOverlayPhotoStatus(queueId, photo.getDisplayName(), photo.getUri(), "completed", 100);
                         showPhotoUploadNotification(photo, i + 1, photos.size(), 100);
@@ -259,18 +257,12 @@ public class PhotoUploadWorker extends Worker {
                     // Update status to uploading
                     apiClient.updateUploadStatus(uploadId, "uploading", 0, jwtToken);
                     
-                    // Read photo file as bytes
-                    byte[] photoData = readPhotoAsBytes(photo.getUri());
-                    if (photoData == null) {
-                        throw new Exception("Could not read photo data");
-                    }
-                    
                     // Update progress
                     apiClient.updateUploadStatus(uploadId, "uploading", 50, jwtToken);
                     showPhotoUploadNotification(photo, i + 1, photos.size(), 50);
                     
-                    // Complete upload with actual file data
-                    apiClient.completeUpload(uploadId, eventId, photoData, photo.getDisplayName(), jwtToken);
+                    // Complete upload, streaming the file from its URI
+                    apiClient.completeUpload(uploadId, eventId, photo.getUri(), photo.getSize(), photo.getDisplayName(), jwtToken);
                     
                     // Update final status
                     apiClient.updateUploadStatus(uploadId, "completed", 100, jwtToken);
@@ -468,25 +460,33 @@ public class PhotoUploadWorker extends Worker {
         return null;
     }
     
-    private byte[] readPhotoAsBytes(Uri photoUri) {
-        try (InputStream inputStream = getApplicationContext().getContentResolver().openInputStream(photoUri);
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-             
-            if (inputStream == null) {
-                return null;
-            }
-            
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
+    /**
+     * Look up a photo's MediaStore DATE_MODIFIED (seconds)
+     * @return DATE_MODIFIED, or -1 if unavailable
+     */
+    private long queryDateModified(Uri photoUri) {
+        String[] projection = { MediaStore.Images.Media.DATE_MODIFIED };
+        try (Cursor cursor = getApplicationContext().getContentResolver().query(photoUri, projection, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getLong(0);
             }
-            
-            return outputStream.toByteArray();
         } catch (Exception e) {
-            Log.e(TAG, "Failed to read photo as bytes: " + e.getMessage(), e);
-            return null;
+            Log.w(TAG, "Failed to read DATE_MODIFIED for " + photoUri + ": " + e.getMessage());
+        }
+        return -1;
+    }
+    
+    /**
+     * Save the hash computed during upload so later scans don't read the photo again,
+     * and add it to the event's uploaded-hash filter so auto-upload skips it
+     */
+    private void recordUploadedHash(String eventId, PhotoItem photo, long dateModified, String uploadedHash) {
+        new UploadedHashFilterStore(getApplicationContext()).recordUpload(eventId, uploadedHash, photo.getSize());
+        if (dateModified < 0 || photo.getSize() <= 0) {
+            return;
         }
+        PhotoHashIndex.getInstance(getApplicationContext())
+            .putSha256(photo.getId(), dateModified, photo.getSize(), uploadedHash);
     }
     
     // Custom TypeAdapter for Uri serialization/deserialization
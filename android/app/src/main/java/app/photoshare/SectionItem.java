@@ -12,6 +12,7 @@ public class SectionItem {
     private final String sectionTitle;
     private final int sectionCount;
     private final PhotoItem photoItem;
+    private final int status;
     
     /**
      * Create a section header item
@@ -23,6 +24,7 @@ public class SectionItem {
         this.sectionTitle = title;
         this.sectionCount = count;
         this.photoItem = null;
+        this.status = 0;
     }
     
     /**
@@ -30,10 +32,20 @@ public class SectionItem {
      * @param photo PhotoItem to display
      */
     public SectionItem(PhotoItem photo) {
+        this(photo, 0);
+    }
+    
+    /**
+     * Create a photo item with the adapter's status for it when the list was built
+     * @param photo PhotoItem to display
+     * @param status Adapter-defined status; a change rebinds the photo
+     */
+    public SectionItem(PhotoItem photo, int status) {
         this.type = TYPE_PHOTO;
         this.sectionTitle = null;
         this.sectionCount = 0;
         this.photoItem = photo;
+        this.status = status;
     }
     
     public int getType() {
@@ -60,6 +72,10 @@ public class SectionItem {
         return photoItem;
     }
     
+    public int getStatus() {
+        return status;
+    }
+    
     @Override
     public String toString() {
         if (isHeader()) {
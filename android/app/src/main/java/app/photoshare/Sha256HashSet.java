@@ -0,0 +1,179 @@
+package app.photoshare;
+
+/**
+ * Open-addressing set of SHA-256 hashes stored as four longs per entry in one flat long[]
+ * Server entries ("sha256hash_fileSize_dateTaken") are parsed straight from the hex, so
+ * building the set for a large event allocates no per-entry Strings or boxed objects.
+ * The file sizes carried by those entries are kept too, so callers can rule out a photo
+ * from its MediaStore size alone before reading the file to hash it.
+ */
+public class Sha256HashSet implements UploadedHashLookup {
+    private static final int LONGS_PER_HASH = 4;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] table;
+    private boolean[] used;
+    private int mask;
+    private int size = 0;
+
+    private final LongHashSet fileSizes = new LongHashSet();
+    // False once any hash was added without a usable size; size checks can't rule anything out then
+    private boolean fileSizesComplete = true;
+
+    public Sha256HashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of hashes expected, used to presize the table
+     */
+    public Sha256HashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Add the hash part of a server entry ("sha256hash_fileSize_dateTaken" or a bare hash)
+     * @param entry Uploaded hash entry
+     * @return true if the entry held a valid hash that wasn't already present
+     */
+    public boolean addUploadedEntry(CharSequence entry) {
+        if (entry == null || !HashCodec.isSha256Prefix(entry)) {
+            return false;
+        }
+
+        long fileSize = HashCodec.parseUploadedEntryFileSize(entry);
+        if (fileSize > 0) {
+            fileSizes.add(fileSize);
+        } else {
+            fileSizesComplete = false;
+        }
+
+        return addHash(HashCodec.parseHexLong(entry, 0), HashCodec.parseHexLong(entry, 16),
+            HashCodec.parseHexLong(entry, 32), HashCodec.parseHexLong(entry, 48));
+    }
+
+    @Override
+    public boolean mayContainFileSize(long fileSize) {
+        return !fileSizesComplete || fileSize <= 0 || fileSizes.contains(fileSize);
+    }
+
+    /**
+     * Add a hash given as its four big-endian 64-bit words
+     * No file size is known for it, so mayContainFileSize stops ruling photos out
+     * @return true if the hash wasn't already present
+     */
+    public boolean add(long w0, long w1, long w2, long w3) {
+        fileSizesComplete = false;
+        return addHash(w0, w1, w2, w3);
+    }
+
+    private boolean addHash(long w0, long w1, long w2, long w3) {
+        if ((size + 1) * 2 > used.length) {
+            rehash(used.length * 2);
+        }
+
+        int slot = slotFor(w0);
+        while (used[slot]) {
+            if (matches(slot, w0, w1, w2, w3)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int base = slot * LONGS_PER_HASH;
+        table[base] = w0;
+        table[base + 1] = w1;
+        table[base + 2] = w2;
+        table[base + 3] = w3;
+        used[slot] = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * @param hex 64-character SHA-256 hex string (a trailing "_..." suffix is ignored)
+     */
+    @Override
+    public boolean contains(CharSequence hex) {
+        if (hex == null || !HashCodec.isSha256Prefix(hex)) {
+            return false;
+        }
+        return contains(HashCodec.parseHexLong(hex, 0), HashCodec.parseHexLong(hex, 16),
+            HashCodec.parseHexLong(hex, 32), HashCodec.parseHexLong(hex, 48));
+    }
+
+    @Override
+    public boolean isVerified() {
+        return true;
+    }
+
+    /**
+     * @param digest Raw 32-byte SHA-256 digest
+     */
+    public boolean contains(byte[] digest) {
+        if (digest == null || digest.length != LONGS_PER_HASH * 8) {
+            return false;
+        }
+        return contains(HashCodec.readLong(digest, 0), HashCodec.readLong(digest, 8),
+            HashCodec.readLong(digest, 16), HashCodec.readLong(digest, 24));
+    }
+
+    public boolean contains(long w0, long w1, long w2, long w3) {
+        int slot = slotFor(w0);
+        while (used[slot]) {
+            if (matches(slot, w0, w1, w2, w3)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private boolean matches(int slot, long w0, long w1, long w2, long w3) {
+        int base = slot * LONGS_PER_HASH;
+        return table[base] == w0 && table[base + 1] == w1 && table[base + 2] == w2 && table[base + 3] == w3;
+    }
+
+    private int slotFor(long w0) {
+        // SHA-256 output is already uniformly distributed, so the first word is a good slot hash
+        return (int) (w0 ^ (w0 >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity * LONGS_PER_HASH];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldTable = table;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        size = 0;
+        for (int slot = 0; slot < oldUsed.length; slot++) {
+            if (oldUsed[slot]) {
+                int base = slot * LONGS_PER_HASH;
+                addHash(oldTable[base], oldTable[base + 1], oldTable[base + 2], oldTable[base + 3]);
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        // Keep the load factor at or below 0.5 so probe chains stay short
+        return Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Sha256HashSet{size=" + size + ", capacity=" + used.length
+            + ", fileSizes=" + (fileSizesComplete ? fileSizes.size() : "incomplete") + "}";
+    }
+}
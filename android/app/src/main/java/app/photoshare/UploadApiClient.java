@@ -10,8 +10,6 @@ import java.io.IOException;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
-import javax.net.ssl.*;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -75,54 +73,16 @@ public class UploadApiClient {
     }
     
     /**
-     * 2025 Cloudflare Bypass: Create HTTP client with randomized TLS fingerprint and connection properties
+     * Upload client: the shared upload client plus the Cloudflare bypass interceptor
+     * Built with newBuilder(), so it reuses the process-wide connection pool and dispatcher
      */
     private OkHttpClient createEnhancedHttpClient() {
-        Log.d(TAG, "🔧 Creating enhanced HTTP client with 2025 Cloudflare bypass techniques");
-        
-        try {
-            // Create custom SSLContext with randomized cipher preferences
-            SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, null, new SecureRandom());
-            
-            return new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(300, TimeUnit.SECONDS) // 5 minutes for large photos
-                .writeTimeout(300, TimeUnit.SECONDS) // 5 minutes for large photos
-                .sslSocketFactory(sslContext.getSocketFactory(), getDefaultTrustManager())
-                // Add connection pool randomization
-                .connectionPool(new ConnectionPool(5 + random.nextInt(6), 5, TimeUnit.MINUTES)) // 5-10 connections
-                // Randomize keep-alive behavior
-                .retryOnConnectionFailure(true)
-                .followRedirects(true)
-                .followSslRedirects(true)
-                // Add interceptor for dynamic header injection
-                .addInterceptor(new CloudflareBypassInterceptor())
-                .build();
-                
-        } catch (Exception e) {
-            Log.w(TAG, "⚠️ Failed to create enhanced HTTP client, using standard client: " + e.getMessage());
-            return new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(300, TimeUnit.SECONDS)
-                .writeTimeout(300, TimeUnit.SECONDS)
-                .build();
-        }
-    }
-    
-    /**
-     * Get default trust manager for SSL
-     */
-    private X509TrustManager getDefaultTrustManager() {
-        try {
-            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(
-                TrustManagerFactory.getDefaultAlgorithm());
-            trustManagerFactory.init((java.security.KeyStore) null);
-            TrustManager[] trustManagers = trustManagerFactory.getTrustManagers();
-            return (X509TrustManager) trustManagers[0];
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get default trust manager", e);
-        }
+        return HttpClientProvider.upload().newBuilder()
+            .followRedirects(true)
+            .followSslRedirects(true)
+            // Add interceptor for dynamic header injection
+            .addInterceptor(new CloudflareBypassInterceptor())
+            .build();
     }
     
     /**
@@ -355,7 +315,29 @@ public class UploadApiClient {
         }
         
         Log.d(TAG, "🔄 JavaScript bridge unavailable, using direct HTTP with native retry logic");
-        return uploadPhotoDirectWithRetry(eventId, photo, fileData, jwtToken);
+        return uploadPhotoDirectWithRetry(eventId, photo, RequestBody.create(fileData, MediaType.get("image/*")), null, jwtToken);
+    }
+    
+    /**
+     * Upload photo by streaming it from its URI, hashing it in the same pass
+     * The SHA-256 is sent as a trailing "file_hash" form part, after the file bytes
+     * Uses the direct multipart endpoint; the JavaScript bridge needs the whole file in memory
+     * @return SHA-256 hex of the uploaded bytes, or null if the upload failed
+     */
+    public String uploadPhotoStreaming(String eventId, PhotoItem photo, String jwtToken) {
+        Log.d(TAG, "📤 Streaming photo upload: " + photo.getDisplayName() + " to event " + eventId);
+        
+        long contentLength = ContentUriRequestBody.queryLength(
+            context.getContentResolver(), photo.getUri(), photo.getSize() > 0 ? photo.getSize() : -1);
+        DigestingRequestBody fileBody = new DigestingRequestBody(
+            context.getContentResolver(), photo.getUri(), MediaType.get("image/*"), contentLength);
+        
+        if (!uploadPhotoDirectWithRetry(eventId, photo, fileBody, fileBody.hashPart(), jwtToken)) {
+            return null;
+        }
+        
+        Log.d(TAG, "🔐 Uploaded " + fileBody.getBytesWritten() + " bytes, SHA-256 " + PhotoHash.getTruncatedHash(fileBody.getSha256()));
+        return fileBody.getSha256();
     }
     
     /**
@@ -491,7 +473,7 @@ public class UploadApiClient {
      * Direct HTTP upload with native retry logic for Cloudflare 403 handling
      * Mirrors web team's implementation in deviceHeaders.ts and supabaseRetry.ts
      */
-    private boolean uploadPhotoDirectWithRetry(String eventId, PhotoItem photo, byte[] fileData, String jwtToken) {
+    private boolean uploadPhotoDirectWithRetry(String eventId, PhotoItem photo, RequestBody fileBody, RequestBody fileHashBody, String jwtToken) {
         Log.d(TAG, "🔄 Starting native retry upload for: " + photo.getDisplayName());
         
         // Retry configuration matching web implementation
@@ -502,7 +484,7 @@ public class UploadApiClient {
             try {
                 Log.d(TAG, "🔄 Upload attempt " + (attempt + 1) + "/" + MAX_RETRIES + " for: " + photo.getDisplayName());
                 
-                Response response = executeUploadWithAndroidHeaders(eventId, photo, fileData, jwtToken);
+                Response response = executeUploadWithAndroidHeaders(eventId, photo, fileBody, fileHashBody, jwtToken);
                 
                 if (response.isSuccessful()) {
                     Log.d(TAG, "✅ Upload successful on attempt " + (attempt + 1) + " for: " + photo.getDisplayName());
@@ -589,24 +571,27 @@ public class UploadApiClient {
     
     /**
      * Execute upload with Android-specific headers matching web team's deviceHeaders.ts
+     * @param fileHashBody Optional "file_hash" part, written after the file part (may be null)
      */
-    private Response executeUploadWithAndroidHeaders(String eventId, PhotoItem photo, byte[] fileData, String jwtToken) throws Exception {
+    private Response executeUploadWithAndroidHeaders(String eventId, PhotoItem photo, RequestBody fileBody, RequestBody fileHashBody, String jwtToken) throws Exception {
         String deviceId = "Android_" + android.os.Build.MODEL.replaceAll("\\s+", "_");
         String originalTimestamp = new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", java.util.Locale.US)
             .format(new java.util.Date(photo.getDateTaken()));
         
         // Create multipart form data
-        RequestBody fileBody = RequestBody.create(fileData, MediaType.get("image/*"));
-        
-        RequestBody multipartBody = new okhttp3.MultipartBody.Builder()
+        okhttp3.MultipartBody.Builder multipartBuilder = new okhttp3.MultipartBody.Builder()
             .setType(okhttp3.MultipartBody.FORM)
             .addFormDataPart("file", photo.getDisplayName(), fileBody)
             .addFormDataPart("event_id", eventId)
             .addFormDataPart("file_name", photo.getDisplayName())
             .addFormDataPart("media_type", "photo")
             .addFormDataPart("device_id", deviceId)
-            .addFormDataPart("original_timestamp", originalTimestamp)
-            .build();
+            .addFormDataPart("original_timestamp", originalTimestamp);
+        if (fileHashBody != null) {
+            // Trailing part: its value is computed while the file part streams
+            multipartBuilder.addFormDataPart("file_hash", null, fileHashBody);
+        }
+        RequestBody multipartBody = multipartBuilder.build();
         
         // Android User-Agent matching deviceHeaders.ts Chrome on Android
         String androidUserAgent = "Mozilla/5.0 (Linux; Android " + android.os.Build.VERSION.RELEASE + "; " + 
@@ -693,12 +678,13 @@ public class UploadApiClient {
         }
     }
     
-    // Complete upload with actual file data
-    public void completeUpload(String uploadId, String eventId, byte[] fileData, String fileName, String jwtToken) throws IOException {
+    // Complete upload by streaming the file from its URI
+    public void completeUpload(String uploadId, String eventId, android.net.Uri fileUri, long fileSize, String fileName, String jwtToken) throws IOException {
         Log.d(TAG, "🎉 Completing upload - Upload ID: " + uploadId + ", Event ID: " + eventId + ", File: " + fileName);
         
         // Create multipart form data
-        RequestBody fileBody = RequestBody.create(fileData, MediaType.get("image/*"));
+        RequestBody fileBody = ContentUriRequestBody.create(
+            context.getContentResolver(), fileUri, MediaType.get("image/*"), fileSize > 0 ? fileSize : -1);
         
         RequestBody multipartBody = new okhttp3.MultipartBody.Builder()
             .setType(okhttp3.MultipartBody.FORM)
@@ -0,0 +1,240 @@
+package app.photoshare;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bloom filter over an event's uploaded SHA-256 hashes and file sizes, persisted as a flat file
+ * A negative answer is definite, so the scan can call a photo "not uploaded" without the
+ * server's hash list. Only positives need the exact list. Loaded filters are memory-mapped
+ * read/write, so nothing is copied to the heap and put() writes through to disk.
+ * Single writer: the upload loop records new hashes while scans only read.
+ */
+public class UploadedHashBloomFilter {
+    private static final int MAGIC = 0x50534246; // "PSBF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int FLAG_FILE_SIZES_COMPLETE = 1;
+
+    // 1% false positives: roughly 10 bits per key
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_BITS = 1024;
+
+    // Header layout (big-endian)
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_FLAGS = 8;
+    private static final int OFFSET_HASH_COUNT = 12;
+    private static final int OFFSET_BIT_COUNT = 16;
+    private static final int OFFSET_CREATED_AT = 24;
+    private static final int OFFSET_ENTRY_COUNT = 32;
+
+    private final ByteBuffer buffer;   // Header followed by the bit array
+    private final long bitCount;
+    private final int hashCount;
+
+    private UploadedHashBloomFilter(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.bitCount = buffer.getLong(OFFSET_BIT_COUNT);
+        this.hashCount = buffer.getInt(OFFSET_HASH_COUNT);
+    }
+
+    /**
+     * Create an empty filter on the heap
+     * @param expectedEntries Number of uploaded entries (each adds a hash key and a size key)
+     */
+    public static UploadedHashBloomFilter create(int expectedEntries) {
+        long keys = Math.max(1, expectedEntries) * 2L;
+        long bits = (long) Math.ceil(-keys * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        bits = Math.max(MIN_BITS, (bits + 63) & ~63L);
+        int hashes = (int) Math.max(1, Math.min(16, Math.round((double) bits / keys * Math.log(2))));
+
+        long totalBytes = HEADER_SIZE + bits / 8;
+        if (totalBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many entries for a filter: " + expectedEntries);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) totalBytes);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_FLAGS, FLAG_FILE_SIZES_COMPLETE);
+        buffer.putInt(OFFSET_HASH_COUNT, hashes);
+        buffer.putLong(OFFSET_BIT_COUNT, bits);
+        buffer.putLong(OFFSET_CREATED_AT, System.currentTimeMillis());
+        buffer.putInt(OFFSET_ENTRY_COUNT, 0);
+        return new UploadedHashBloomFilter(buffer);
+    }
+
+    /**
+     * Memory-map a filter previously saved with writeTo
+     * @return Loaded filter, or null if the file is missing or not a valid filter
+     */
+    public static UploadedHashBloomFilter load(File file) throws IOException {
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return null;
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (mapped.getInt(OFFSET_MAGIC) != MAGIC || mapped.getInt(OFFSET_VERSION) != VERSION) {
+                return null;
+            }
+            long bits = mapped.getLong(OFFSET_BIT_COUNT);
+            if (bits <= 0 || HEADER_SIZE + bits / 8 != channel.size()) {
+                return null;
+            }
+            return new UploadedHashBloomFilter(mapped);
+        }
+    }
+
+    /**
+     * Save the filter, replacing any existing file atomically
+     */
+    public void writeTo(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create " + parent);
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            channel.truncate(0);
+            ByteBuffer source = buffer.duplicate();
+            source.clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+            channel.force(false);
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    /**
+     * Add a server entry ("sha256hash_fileSize_dateTaken" or a bare hash)
+     * @return true if the entry held a valid hash
+     */
+    public boolean putUploadedEntry(CharSequence entry) {
+        if (entry == null) {
+            return false;
+        }
+        return putHash(entry, HashCodec.parseUploadedEntryFileSize(entry));
+    }
+
+    /**
+     * Record an uploaded photo
+     * @param hex SHA-256 hex of the photo
+     * @param fileSize Size in bytes, or -1 if unknown (size checks are then disabled)
+     * @return false if hex isn't a SHA-256 hash (nothing is recorded)
+     */
+    public boolean putHash(CharSequence hex, long fileSize) {
+        if (!HashCodec.isSha256Prefix(hex)) {
+            return false;
+        }
+        long h1 = HashCodec.parseHexLong(hex, 0);
+        long h2 = HashCodec.parseHexLong(hex, 16) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            setBit(h1 + i * h2);
+        }
+
+        if (fileSize > 0) {
+            long s1 = mix(fileSize);
+            long s2 = mix(s1) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                setBit(s1 + i * s2);
+            }
+        } else {
+            buffer.putInt(OFFSET_FLAGS, buffer.getInt(OFFSET_FLAGS) & ~FLAG_FILE_SIZES_COMPLETE);
+        }
+        buffer.putInt(OFFSET_ENTRY_COUNT, buffer.getInt(OFFSET_ENTRY_COUNT) + 1);
+        return true;
+    }
+
+    /**
+     * @param hex 64-character SHA-256 hex string
+     * @return false if the hash was definitely never added
+     */
+    public boolean mightContain(CharSequence hex) {
+        if (hex == null || !HashCodec.isSha256Prefix(hex)) {
+            return false;
+        }
+        long h1 = HashCodec.parseHexLong(hex, 0);
+        long h2 = HashCodec.parseHexLong(hex, 16) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            if (!getBit(h1 + i * h2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if this many entries fit without exceeding the target false positive rate
+     */
+    public boolean hasCapacityFor(int entries) {
+        long keys = Math.max(1, entries) * 2L;
+        return Math.ceil(-keys * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2))) <= bitCount;
+    }
+
+    /**
+     * @param fileSize File size in bytes
+     * @return false if no entry of this size was definitely ever added
+     */
+    public boolean mightContainFileSize(long fileSize) {
+        if ((buffer.getInt(OFFSET_FLAGS) & FLAG_FILE_SIZES_COMPLETE) == 0 || fileSize <= 0) {
+            return true;
+        }
+        long s1 = mix(fileSize);
+        long s2 = mix(s1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            if (!getBit(s1 + i * s2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getCreatedAtMillis() {
+        return buffer.getLong(OFFSET_CREATED_AT);
+    }
+
+    public int getEntryCount() {
+        return buffer.getInt(OFFSET_ENTRY_COUNT);
+    }
+
+    /**
+     * @return Size of the filter's bit array in bytes
+     */
+    public long getSizeInBytes() {
+        return bitCount / 8;
+    }
+
+    private void setBit(long combinedHash) {
+        long bit = Math.floorMod(combinedHash, bitCount);
+        int index = HEADER_SIZE + (int) (bit >>> 3);
+        buffer.put(index, (byte) (buffer.get(index) | (1 << (bit & 7))));
+    }
+
+    private boolean getBit(long combinedHash) {
+        long bit = Math.floorMod(combinedHash, bitCount);
+        return (buffer.get(HEADER_SIZE + (int) (bit >>> 3)) & (1 << (bit & 7))) != 0;
+    }
+
+    /**
+     * SplitMix64 finalizer: file sizes aren't random, so spread them before indexing
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
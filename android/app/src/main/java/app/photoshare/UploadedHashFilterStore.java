@@ -0,0 +1,108 @@
+package app.photoshare;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-event UploadedHashBloomFilter files under the app's private storage
+ * A filter mirrors the event's server hash list as of the last sync: each pass revalidates
+ * the list (ETag / ?since=) and keeps, extends or rebuilds the filter to match. This
+ * device's own uploads are written into it as they succeed.
+ * All access to an event's file goes through lockFor(eventId), so an upload recorded during
+ * a sync waits for the synced filter to be saved instead of writing to a file being replaced.
+ */
+public class UploadedHashFilterStore {
+    private static final String TAG = "UploadedHashFilterStore";
+    private static final String DIRECTORY_NAME = "uploaded_hash_filters";
+
+    // One lock per event, shared by every store instance in the process
+    private static final ConcurrentHashMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final File directory;
+
+    public UploadedHashFilterStore(Context context) {
+        this.directory = new File(context.getApplicationContext().getFilesDir(), DIRECTORY_NAME);
+    }
+
+    /**
+     * Lock guarding an event's filter file; hold it from take() until the filter is saved
+     */
+    public static Object lockFor(String eventId) {
+        Object lock = LOCKS.get(eventId);
+        if (lock == null) {
+            Object created = new Object();
+            lock = LOCKS.putIfAbsent(eventId, created);
+            if (lock == null) {
+                lock = created;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Load an event's filter and remove its file until it's saved back
+     * Call with lockFor(eventId) held, before syncing: if the process dies before the synced
+     * filter is saved, the next pass finds no filter and rebuilds it rather than trusting one
+     * that missed a delta.
+     * @return Memory-mapped filter (still usable after its file is removed), or null if there is none
+     */
+    public UploadedHashBloomFilter take(String eventId) {
+        File file = fileFor(eventId);
+        try {
+            UploadedHashBloomFilter filter = UploadedHashBloomFilter.load(file);
+            if (filter != null) {
+                Log.d(TAG, "🌸 Loaded filter for event " + eventId + ": " + filter.getEntryCount() + " entries, " + filter.getSizeInBytes() + " bytes");
+            }
+            return filter;
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Failed to load filter for event " + eventId + ": " + e.getMessage());
+            return null;
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Persist an event's filter once it matches the synced hash list (call with lockFor(eventId) held)
+     */
+    public void save(String eventId, UploadedHashBloomFilter filter) {
+        try {
+            filter.writeTo(fileFor(eventId));
+            Log.d(TAG, "💾 Saved filter for event " + eventId + ": " + filter.getEntryCount() + " entries");
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Failed to save filter for event " + eventId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add a photo this device just uploaded to the event's filter, if one exists
+     * Waits while the event's filter is being synced, then writes into the saved file.
+     * @param sha256 SHA-256 hex of the uploaded photo
+     * @param fileSize Uploaded size in bytes
+     */
+    public void recordUpload(String eventId, String sha256, long fileSize) {
+        if (sha256 == null || sha256.length() != 64 || !HashCodec.isSha256Prefix(sha256)) {
+            Log.w(TAG, "⚠️ Not recording invalid hash for event " + eventId + ": " + sha256);
+            return;
+        }
+        synchronized (lockFor(eventId)) {
+            try {
+                UploadedHashBloomFilter filter = UploadedHashBloomFilter.load(fileFor(eventId));
+                if (filter != null) {
+                    // Mapped read/write, so this lands in the file directly
+                    filter.putHash(sha256, fileSize);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "⚠️ Failed to record upload in filter for event " + eventId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private File fileFor(String eventId) {
+        return new File(directory, eventId.replaceAll("[^A-Za-z0-9_-]", "_") + ".bloom");
+    }
+}
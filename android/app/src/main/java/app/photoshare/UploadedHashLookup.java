@@ -0,0 +1,28 @@
+package app.photoshare;
+
+/**
+ * Read-only view of an event's uploaded SHA-256 hashes used by the auto-upload scan
+ * Implemented by the exact Sha256HashSet and by filter-backed lookups that only
+ * load the exact list when they can't answer on their own.
+ */
+public interface UploadedHashLookup {
+
+    /**
+     * Check whether a photo of this size could match an uploaded hash
+     * @param fileSize File size in bytes (e.g. MediaStore SIZE)
+     * @return false only if no uploaded entry has this size, so the photo can't be a duplicate
+     */
+    boolean mayContainFileSize(long fileSize);
+
+    /**
+     * @param hex 64-character SHA-256 hex string
+     * @return true if the hash has been uploaded to the event
+     */
+    boolean contains(CharSequence hex);
+
+    /**
+     * @return false if some contains() answer was a guess (the exact list couldn't be loaded),
+     *         so photos skipped as uploaded must be checked again on a later pass
+     */
+    boolean isVerified();
+}
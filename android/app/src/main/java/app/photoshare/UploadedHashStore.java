@@ -0,0 +1,299 @@
+package app.photoshare;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Per-event on-disk cache of the server's uploaded-hash entries
+ * Stores the entries with the sync watermark and ETag from the last response so the
+ * next sync can ask for only what changed (see UserEventsApiClient.getUploadedPhotoHashes).
+ * Revalidation reads only the header and deltas are merged file to file, so a sync never
+ * needs the whole entry list in memory.
+ */
+public class UploadedHashStore {
+    private static final String TAG = "UploadedHashStore";
+    private static final int HASH_LENGTH = 64;
+
+    private final File directory;
+    private final Gson gson = new Gson();
+
+    /**
+     * Cached state for one event
+     */
+    public static class Entry {
+        public String eventId;
+        public String etag;             // ETag of the last 200 response, sent as If-None-Match
+        public String watermark;        // Server sync position, sent as ?since= (null if deltas unsupported)
+        public List<String> uploadedHashes = new ArrayList<>();  // "sha256hash_fileSize_dateTaken"
+        public long syncedAt;
+
+        public Entry() {}
+
+        public Entry(String eventId, String etag, String watermark, List<String> uploadedHashes) {
+            this.eventId = eventId;
+            this.etag = etag;
+            this.watermark = watermark;
+            this.uploadedHashes = uploadedHashes != null ? uploadedHashes : new ArrayList<>();
+            this.syncedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Sync state of a cached event, without its entries
+     */
+    public static class Header {
+        public final String etag;
+        public final String watermark;
+        public final int entryCount;
+
+        Header(String etag, String watermark, int entryCount) {
+            this.etag = etag;
+            this.watermark = watermark;
+            this.entryCount = entryCount;
+        }
+    }
+
+    /**
+     * Receives cached entries one at a time
+     */
+    public interface EntryVisitor {
+        void visit(String entry);
+    }
+
+    /**
+     * @param directory Directory holding one cache file per event
+     */
+    public UploadedHashStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return Cached state for the event, or null if nothing usable is cached
+     */
+    public synchronized Entry load(String eventId) {
+        File file = fileFor(eventId);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            Entry entry = gson.fromJson(reader, Entry.class);
+            if (entry == null || entry.uploadedHashes == null || !eventId.equals(entry.eventId)) {
+                return null;
+            }
+            return entry;
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Discarding unreadable hash cache for event " + eventId + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Read an event's ETag, watermark and entry count, skipping over the entries
+     * @return Header, or null if nothing usable is cached
+     */
+    public synchronized Header loadHeader(String eventId) {
+        File file = fileFor(eventId);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String cachedEventId = null;
+            String etag = null;
+            String watermark = null;
+            int entryCount = -1;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                } else if (name.equals("eventId")) {
+                    cachedEventId = reader.nextString();
+                } else if (name.equals("etag")) {
+                    etag = reader.nextString();
+                } else if (name.equals("watermark")) {
+                    watermark = reader.nextString();
+                } else if (name.equals("uploadedHashes")) {
+                    entryCount = 0;
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.skipValue();
+                        entryCount++;
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            if (entryCount < 0 || !eventId.equals(cachedEventId)) {
+                return null;
+            }
+            return new Header(etag, watermark, entryCount);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Discarding unreadable hash cache for event " + eventId + ": " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stream an event's cached entries, in cache order
+     * @return false if nothing usable is cached
+     */
+    public synchronized boolean forEachEntry(String eventId, EntryVisitor visitor) {
+        File file = fileFor(eventId);
+        if (!file.exists()) {
+            return false;
+        }
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            return readEntries(reader, eventId, visitor);
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Failed to read hash cache for event " + eventId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Apply a delta to the cached entries, streaming the old file into its replacement
+     * Entries are matched by their hash prefix; only the delta itself is held in memory.
+     * @param added New entries (replace cached entries with the same hash), appended after the cached ones
+     * @param removed Entries or bare hashes deleted on the server (may be null)
+     * @return Number of entries after the merge
+     * @throws IOException if nothing usable is cached or the new file can't be written
+     */
+    public synchronized int applyDelta(String eventId, String etag, String watermark,
+                                       List<String> added, List<String> removed) throws IOException {
+        Set<String> dropped = new HashSet<>();
+        if (removed != null) {
+            for (String entry : removed) {
+                dropped.add(hashKey(entry));
+            }
+        }
+        for (String entry : added) {
+            dropped.add(hashKey(entry));
+        }
+
+        File file = fileFor(eventId);
+        File tempFile = new File(file.getPath() + ".tmp");
+        int[] count = new int[1];
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+             JsonWriter writer = new JsonWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            writer.setSerializeNulls(false);
+            writer.beginObject();
+            writer.name("eventId").value(eventId);
+            writer.name("etag").value(etag);
+            writer.name("watermark").value(watermark);
+            writer.name("uploadedHashes").beginArray();
+            IOException[] writeError = new IOException[1];
+            boolean cached = readEntries(reader, eventId, entry -> {
+                if (writeError[0] != null || dropped.contains(hashKey(entry))) {
+                    return;
+                }
+                try {
+                    writer.value(entry);
+                    count[0]++;
+                } catch (IOException e) {
+                    writeError[0] = e;
+                }
+            });
+            if (writeError[0] != null) {
+                throw writeError[0];
+            }
+            if (!cached) {
+                throw new IOException("No usable hash cache for event " + eventId);
+            }
+            for (String entry : added) {
+                writer.value(entry);
+                count[0]++;
+            }
+            writer.endArray();
+            writer.name("syncedAt").value(System.currentTimeMillis());
+            writer.endObject();
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+        return count[0];
+    }
+
+    /**
+     * Save an event's state, replacing the previous file atomically
+     */
+    public synchronized void save(Entry entry) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+
+        File file = fileFor(entry.eventId);
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            gson.toJson(entry, writer);
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    // Visits the uploadedHashes array of a cache file; false if it belongs to another event or has none
+    private static boolean readEntries(JsonReader reader, String eventId, EntryVisitor visitor) throws IOException {
+        String cachedEventId = null;
+        boolean hasEntries = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("eventId") && reader.peek() == JsonToken.STRING) {
+                cachedEventId = reader.nextString();
+            } else if (name.equals("uploadedHashes") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                // Gson writes eventId first, so entries of another event's file are never visited
+                if (!eventId.equals(cachedEventId)) {
+                    return false;
+                }
+                hasEntries = true;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    visitor.visit(reader.nextString());
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return hasEntries;
+    }
+
+    private static String hashKey(String entry) {
+        String hash = entry.length() > HASH_LENGTH ? entry.substring(0, HASH_LENGTH) : entry;
+        return hash.toLowerCase(Locale.ROOT);
+    }
+
+    private File fileFor(String eventId) {
+        return new File(directory, eventId.replaceAll("[^A-Za-z0-9_-]", "_") + ".json");
+    }
+}
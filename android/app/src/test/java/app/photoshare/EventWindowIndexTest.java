@@ -0,0 +1,104 @@
+package app.photoshare;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Stabbing queries and window merging over inclusive event windows
+ */
+public class EventWindowIndexTest {
+
+    @Test
+    public void findsNestedWindowsBehindALongEarlierWindow() {
+        // The long outer window starts first, so the walk must continue past the short
+        // windows that end before the query time
+        EventWindowIndex index = new EventWindowIndex(
+            new long[] { 0, 10, 20 },
+            new long[] { 100, 15, 30 });
+
+        assertArrayEquals(new int[] { 0, 2 }, find(index, 25));
+        assertArrayEquals(new int[] { 0, 1 }, find(index, 12));
+        assertArrayEquals(new int[] { 0 }, find(index, 50));
+        assertEquals(1, index.getMergedWindowCount());
+        assertEquals(0, index.getMergedWindowStart(0));
+        assertEquals(100, index.getMergedWindowEnd(0));
+    }
+
+    @Test
+    public void matchesBothInclusiveBounds() {
+        EventWindowIndex index = new EventWindowIndex(new long[] { 10 }, new long[] { 20 });
+
+        assertArrayEquals(new int[0], find(index, 9));
+        assertArrayEquals(new int[] { 0 }, find(index, 10));
+        assertArrayEquals(new int[] { 0 }, find(index, 20));
+        assertArrayEquals(new int[0], find(index, 21));
+        assertTrue(index.containsAny(10));
+        assertTrue(index.containsAny(20));
+        assertFalse(index.containsAny(21));
+    }
+
+    @Test
+    public void mergesTouchingWindowsButKeepsThemDistinct() {
+        // [0, 9] and [10, 20] leave no uncovered millisecond between them
+        EventWindowIndex index = new EventWindowIndex(new long[] { 0, 10 }, new long[] { 9, 20 });
+
+        assertEquals(1, index.getMergedWindowCount());
+        assertEquals(0, index.getMergedWindowStart(0));
+        assertEquals(20, index.getMergedWindowEnd(0));
+        assertArrayEquals(new int[] { 0 }, find(index, 9));
+        assertArrayEquals(new int[] { 1 }, find(index, 10));
+    }
+
+    @Test
+    public void keepsWindowsWithAOneMillisecondGapSeparate() {
+        EventWindowIndex index = new EventWindowIndex(new long[] { 0, 11 }, new long[] { 9, 20 });
+
+        assertEquals(2, index.getMergedWindowCount());
+        assertFalse(index.containsAny(10));
+    }
+
+    @Test
+    public void reportsEveryIdenticalWindow() {
+        EventWindowIndex index = new EventWindowIndex(new long[] { 5, 5, 5 }, new long[] { 8, 8, 8 });
+
+        assertArrayEquals(new int[] { 0, 1, 2 }, find(index, 5));
+        assertArrayEquals(new int[] { 0, 1, 2 }, find(index, 8));
+        assertEquals(1, index.getMergedWindowCount());
+    }
+
+    @Test
+    public void separatesDisjointWindows() {
+        // Given out of start order to exercise the sort and the index mapping
+        EventWindowIndex index = new EventWindowIndex(new long[] { 100, 0 }, new long[] { 200, 50 });
+
+        assertArrayEquals(new int[] { 1 }, find(index, 25));
+        assertArrayEquals(new int[] { 0 }, find(index, 150));
+        assertArrayEquals(new int[0], find(index, 75));
+        assertFalse(index.containsAny(-1));
+        assertFalse(index.containsAny(201));
+        assertEquals(2, index.getMergedWindowCount());
+        assertEquals(0, index.getMinStart());
+        assertEquals(200, index.getMaxEnd());
+    }
+
+    @Test
+    public void emptyIndexContainsNothing() {
+        EventWindowIndex index = new EventWindowIndex(new long[0], new long[0]);
+
+        assertArrayEquals(new int[0], find(index, 0));
+        assertFalse(index.containsAny(0));
+        assertEquals(0, index.getMergedWindowCount());
+    }
+
+    // Matching event indexes, sorted (findContaining returns them in no particular order)
+    private static int[] find(EventWindowIndex index, long time) {
+        int[] out = new int[index.size()];
+        int found = index.findContaining(time, out);
+        int[] result = Arrays.copyOf(out, found);
+        Arrays.sort(result);
+        return result;
+    }
+}
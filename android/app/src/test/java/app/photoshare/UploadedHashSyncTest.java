@@ -0,0 +1,199 @@
+package app.photoshare;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Incremental uploaded-hash sync against a stand-in for api-events-uploaded-photos
+ */
+public class UploadedHashSyncTest {
+    private static final String EVENT_ID = "event-1";
+    private static final String HASH_A = repeat('a');
+    private static final String HASH_B = repeat('b');
+    private static final String HASH_C = repeat('c');
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private UserEventsApiClient apiClient;
+    private UploadedHashStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        String baseUrl = server.url("/").toString();
+        apiClient = new UserEventsApiClient(baseUrl.substring(0, baseUrl.length() - 1), new OkHttpClient());
+        store = new UploadedHashStore(tempFolder.newFolder("uploaded_hashes"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void firstSyncFetchesFullListAndCachesIt() throws Exception {
+        server.enqueue(json("\"v1\"", "{\"uploadedHashes\":[\"" + HASH_A + "_100_1\",\"" + HASH_B + "_200_2\"]," +
+            "\"count\":2,\"watermark\":\"w1\"}"));
+
+        List<String> hashes = apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+
+        assertEquals(Arrays.asList(HASH_A + "_100_1", HASH_B + "_200_2"), hashes);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/functions/v1/api-events-uploaded-photos/" + EVENT_ID, request.getRequestUrl().encodedPath());
+        assertNull(request.getRequestUrl().queryParameter("since"));
+        assertNull(request.getHeader("If-None-Match"));
+
+        UploadedHashStore.Entry cached = store.load(EVENT_ID);
+        assertEquals("\"v1\"", cached.etag);
+        assertEquals("w1", cached.watermark);
+        assertEquals(hashes, cached.uploadedHashes);
+    }
+
+    @Test
+    public void deltaIsMergedIntoCache() throws Exception {
+        server.enqueue(json("\"v1\"", "{\"uploadedHashes\":[\"" + HASH_A + "_100_1\",\"" + HASH_B + "_200_2\"]," +
+            "\"count\":2,\"watermark\":\"w1\"}"));
+        server.enqueue(json("\"v2\"", "{\"uploadedHashes\":[\"" + HASH_C + "_300_3\"],\"count\":1," +
+            "\"watermark\":\"w2\",\"delta\":true,\"removedHashes\":[\"" + HASH_A + "\"]}"));
+
+        apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        List<String> hashes = apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+
+        assertEquals(Arrays.asList(HASH_B + "_200_2", HASH_C + "_300_3"), hashes);
+        server.takeRequest();
+        RecordedRequest deltaRequest = server.takeRequest();
+        assertEquals("w1", deltaRequest.getRequestUrl().queryParameter("since"));
+        assertEquals("\"v1\"", deltaRequest.getHeader("If-None-Match"));
+
+        UploadedHashStore.Entry cached = store.load(EVENT_ID);
+        assertEquals("w2", cached.watermark);
+        assertEquals(hashes, cached.uploadedHashes);
+    }
+
+    @Test
+    public void notModifiedReturnsCachedEntries() throws Exception {
+        server.enqueue(json("\"v1\"", "{\"uploadedHashes\":[\"" + HASH_A + "_100_1\"],\"count\":1,\"watermark\":\"w1\"}"));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        List<String> hashes = apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+
+        assertEquals(Arrays.asList(HASH_A + "_100_1"), hashes);
+        assertEquals("w1", store.load(EVENT_ID).watermark);
+    }
+
+    @Test
+    public void serverWithoutDeltasFallsBackToConditionalFullFetch() throws Exception {
+        // No watermark in the response: the client can only revalidate the full list by ETag
+        server.enqueue(json("\"v1\"", "{\"uploadedHashes\":[\"" + HASH_A + "_100_1\"],\"count\":1}"));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        server.enqueue(json("\"v2\"", "{\"uploadedHashes\":[\"" + HASH_B + "_200_2\"],\"count\":1}"));
+
+        apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        assertEquals(Arrays.asList(HASH_A + "_100_1"), apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store));
+        assertEquals(Arrays.asList(HASH_B + "_200_2"), apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store));
+
+        server.takeRequest();
+        RecordedRequest conditional = server.takeRequest();
+        assertNull(conditional.getRequestUrl().queryParameter("since"));
+        assertEquals("\"v1\"", conditional.getHeader("If-None-Match"));
+        assertEquals("\"v2\"", store.load(EVENT_ID).etag);
+    }
+
+    @Test
+    public void fullResponseToDeltaRequestReplacesCache() throws Exception {
+        // A server may answer ?since= with the full list (e.g. after compacting its change log)
+        server.enqueue(json("\"v1\"", "{\"uploadedHashes\":[\"" + HASH_A + "_100_1\"],\"count\":1,\"watermark\":\"w1\"}"));
+        server.enqueue(json("\"v2\"", "{\"uploadedHashes\":[\"" + HASH_C + "_300_3\"],\"count\":1,\"watermark\":\"w2\"}"));
+
+        apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        List<String> hashes = apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+
+        assertEquals(Arrays.asList(HASH_C + "_300_3"), hashes);
+    }
+
+    @Test
+    public void syncReportsHowTheListChanged() throws Exception {
+        server.enqueue(json("\"v1\"", "{\"uploadedHashes\":[\"" + HASH_A + "_100_1\"],\"count\":1,\"watermark\":\"w1\"}"));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        server.enqueue(json("\"v2\"", "{\"uploadedHashes\":[\"" + HASH_B + "_200_2\"],\"count\":1," +
+            "\"watermark\":\"w2\",\"delta\":true}"));
+
+        UserEventsApiClient.UploadedHashSync full = apiClient.syncUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        assertTrue(full.isFullList());
+        assertNull(full.addedHashes);
+        assertEquals(Arrays.asList(HASH_A + "_100_1"), full.uploadedHashes);
+
+        // Unchanged and delta syncs leave the entries in the store rather than loading them
+        UserEventsApiClient.UploadedHashSync notModified = apiClient.syncUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        assertTrue(notModified.notModified);
+        assertFalse(notModified.isFullList());
+        assertNull(notModified.uploadedHashes);
+        assertEquals(1, notModified.entryCount);
+
+        UserEventsApiClient.UploadedHashSync delta = apiClient.syncUploadedPhotoHashes(EVENT_ID, "jwt", store);
+        assertFalse(delta.isFullList());
+        assertNull(delta.uploadedHashes);
+        assertEquals(Arrays.asList(HASH_B + "_200_2"), delta.addedHashes);
+        assertEquals(2, delta.entryCount);
+        assertEquals(Arrays.asList(HASH_A + "_100_1", HASH_B + "_200_2"), store.load(EVENT_ID).uploadedHashes);
+    }
+
+    @Test
+    public void storeStreamsEntriesAndHeader() throws Exception {
+        store.save(new UploadedHashStore.Entry(EVENT_ID, "\"v1\"", "w1",
+            Arrays.asList(HASH_A + "_100_1", HASH_B + "_200_2")));
+
+        UploadedHashStore.Header header = store.loadHeader(EVENT_ID);
+        assertEquals("\"v1\"", header.etag);
+        assertEquals("w1", header.watermark);
+        assertEquals(2, header.entryCount);
+
+        int count = store.applyDelta(EVENT_ID, "\"v2\"", "w2",
+            Arrays.asList(HASH_C + "_300_3", HASH_B + "_250_2"), Arrays.asList(HASH_A));
+        assertEquals(2, count);
+
+        List<String> streamed = new ArrayList<>();
+        assertTrue(store.forEachEntry(EVENT_ID, streamed::add));
+        assertEquals(Arrays.asList(HASH_C + "_300_3", HASH_B + "_250_2"), streamed);
+        assertEquals("w2", store.loadHeader(EVENT_ID).watermark);
+        assertFalse(store.forEachEntry("other-event", streamed::add));
+    }
+
+    @Test(expected = Exception.class)
+    public void serverErrorIsReported() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        apiClient.getUploadedPhotoHashes(EVENT_ID, "jwt", store);
+    }
+
+    private static MockResponse json(String etag, String body) {
+        return new MockResponse()
+            .setResponseCode(200)
+            .setHeader("Content-Type", "application/json")
+            .setHeader("ETag", etag)
+            .setBody(body);
+    }
+
+    private static String repeat(char c) {
+        char[] chars = new char[64];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,82 @@
+package app.photoshare;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SHA-256 digesting and hex encoding as done by PhotoHash.calculateSHA256
+ */
+@State(Scope.Thread)
+public class HashEncodingBenchmark {
+    // Same read sizes as PhotoHash's FileChannel and InputStream paths
+    private static final int CHANNEL_BUFFER_SIZE = 256 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    @Param({"1048576", "4194304"})
+    public int photoSize;
+
+    private byte[] photoBytes;
+    private byte[] digestBytes;
+    private ByteBuffer directBuffer;
+    private MessageDigest digest;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        photoBytes = new byte[photoSize];
+        random.nextBytes(photoBytes);
+        digestBytes = new byte[32];
+        random.nextBytes(digestBytes);
+        directBuffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+        digest = MessageDigest.getInstance("SHA-256");
+    }
+
+    @Benchmark
+    public String toHex() {
+        return HashCodec.toHex(digestBytes);
+    }
+
+    @Benchmark
+    public long[] toDigestWords() {
+        return new long[] {
+            HashCodec.readLong(digestBytes, 0),
+            HashCodec.readLong(digestBytes, 8),
+            HashCodec.readLong(digestBytes, 16),
+            HashCodec.readLong(digestBytes, 24)
+        };
+    }
+
+    /**
+     * Stream path: heap chunks of STREAM_BUFFER_SIZE
+     */
+    @Benchmark
+    public String digestHeapChunksToHex() {
+        digest.reset();
+        for (int offset = 0; offset < photoBytes.length; offset += STREAM_BUFFER_SIZE) {
+            digest.update(photoBytes, offset, Math.min(STREAM_BUFFER_SIZE, photoBytes.length - offset));
+        }
+        return HashCodec.toHex(digest.digest());
+    }
+
+    /**
+     * Channel path: chunks copied through a reused direct buffer (includes the copy a channel read would make)
+     */
+    @Benchmark
+    public String digestDirectBufferToHex() {
+        digest.reset();
+        for (int offset = 0; offset < photoBytes.length; offset += CHANNEL_BUFFER_SIZE) {
+            directBuffer.clear();
+            directBuffer.put(photoBytes, offset, Math.min(CHANNEL_BUFFER_SIZE, photoBytes.length - offset));
+            directBuffer.flip();
+            digest.update(directBuffer);
+        }
+        return HashCodec.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,89 @@
+package app.photoshare;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Perceptual hash comparison and the near-duplicate search used by EnhancedDuplicateDetector
+ */
+@State(Scope.Thread)
+public class PerceptualHashBenchmark {
+    private static final int QUERY_COUNT = 256;
+    private static final int NEAR_DUPLICATE_DISTANCE = 3;
+
+    @Param({"1000", "10000"})
+    public int uploadedCount;
+
+    private String[] hexHashes;
+    private long[] queries;
+    private PerceptualHashIndex<Integer> index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new PerceptualHashIndex<>();
+        hexHashes = new String[uploadedCount];
+        long[] uploaded = new long[uploadedCount];
+        for (int i = 0; i < uploadedCount; i++) {
+            uploaded[i] = random.nextLong();
+            hexHashes[i] = String.format("%016x", uploaded[i]);
+            index.add(uploaded[i], i);
+        }
+        index.build();
+
+        // Half the queries are near duplicates (2 bits flipped), half are unrelated photos
+        queries = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = i % 2 == 0
+                ? uploaded[random.nextInt(uploadedCount)] ^ (1L << random.nextInt(64)) ^ (1L << random.nextInt(64))
+                : random.nextLong();
+        }
+    }
+
+    @Benchmark
+    public int hexHammingDistance() {
+        int i = next++ % (hexHashes.length - 1);
+        return HashCodec.hammingDistance(hexHashes[i], hexHashes[i + 1]);
+    }
+
+    @Benchmark
+    public double hexSimilarity() {
+        int i = next++ % (hexHashes.length - 1);
+        return HashCodec.similarity(HashCodec.hammingDistance(hexHashes[i], hexHashes[i + 1]));
+    }
+
+    /**
+     * Pre-index behaviour: parse and compare every uploaded hex hash
+     */
+    @Benchmark
+    public int linearHexScan() {
+        String query = String.format("%016x", queries[next++ % QUERY_COUNT]);
+        int bestDistance = Integer.MAX_VALUE;
+        for (String uploaded : hexHashes) {
+            bestDistance = Math.min(bestDistance, HashCodec.hammingDistance(query, uploaded));
+        }
+        return bestDistance <= NEAR_DUPLICATE_DISTANCE ? bestDistance : -1;
+    }
+
+    /**
+     * Linear scan over primitive hashes (radius above MAX_INDEXED_DISTANCE)
+     */
+    @Benchmark
+    public Object linearPrimitiveScan() {
+        return index.findNearest(queries[next++ % QUERY_COUNT], PerceptualHashIndex.MAX_INDEXED_DISTANCE + 1);
+    }
+
+    /**
+     * Band-indexed lookup used at the 95% similarity threshold
+     */
+    @Benchmark
+    public Object indexedLookup() {
+        return index.findNearest(queries[next++ % QUERY_COUNT], NEAR_DUPLICATE_DISTANCE);
+    }
+}
@@ -0,0 +1,105 @@
+package app.photoshare;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing the server's uploadedHashes entries ("sha256hash_fileSize_dateTaken") and
+ * answering the scan's "already uploaded?" queries
+ */
+@State(Scope.Thread)
+public class UploadedHashesParsingBenchmark {
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"1000", "10000"})
+    public int uploadedCount;
+
+    private String[] entries;
+    private String[] queryHashes;
+    private long[] querySizes;
+    private UploadedHashLookup exactLookup;
+    private UploadedHashBloomFilter filter;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        byte[] digest = new byte[32];
+        entries = new String[uploadedCount];
+        for (int i = 0; i < uploadedCount; i++) {
+            random.nextBytes(digest);
+            long fileSize = 500_000 + random.nextInt(8_000_000);
+            entries[i] = HashCodec.toHex(digest) + "_" + fileSize + "_" + (1_700_000_000_000L + i);
+        }
+
+        Sha256HashSet hashSet = new Sha256HashSet(uploadedCount);
+        filter = UploadedHashBloomFilter.create(uploadedCount);
+        for (String entry : entries) {
+            hashSet.addUploadedEntry(entry);
+            filter.putUploadedEntry(entry);
+        }
+        exactLookup = hashSet;
+
+        // Half the queries are uploaded photos, half are new ones
+        queryHashes = new String[QUERY_COUNT];
+        querySizes = new long[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            if (i % 2 == 0) {
+                String entry = entries[random.nextInt(uploadedCount)];
+                queryHashes[i] = entry.substring(0, 64);
+                querySizes[i] = HashCodec.parseUploadedEntryFileSize(entry);
+            } else {
+                random.nextBytes(digest);
+                queryHashes[i] = HashCodec.toHex(digest);
+                querySizes[i] = 500_000 + random.nextInt(8_000_000);
+            }
+        }
+    }
+
+    @Benchmark
+    public Sha256HashSet buildExactSet() {
+        Sha256HashSet hashSet = new Sha256HashSet(entries.length);
+        for (String entry : entries) {
+            hashSet.addUploadedEntry(entry);
+        }
+        return hashSet;
+    }
+
+    @Benchmark
+    public UploadedHashBloomFilter buildBloomFilter() {
+        UploadedHashBloomFilter bloomFilter = UploadedHashBloomFilter.create(entries.length);
+        for (String entry : entries) {
+            bloomFilter.putUploadedEntry(entry);
+        }
+        return bloomFilter;
+    }
+
+    @Benchmark
+    public long parseFileSizes() {
+        long total = 0;
+        for (String entry : entries) {
+            total += HashCodec.parseUploadedEntryFileSize(entry);
+        }
+        return total;
+    }
+
+    /**
+     * Scan-time check: size pre-filter, then the exact hash
+     */
+    @Benchmark
+    public boolean exactLookup() {
+        int i = next++ % QUERY_COUNT;
+        return exactLookup.mayContainFileSize(querySizes[i]) && exactLookup.contains(queryHashes[i]);
+    }
+
+    @Benchmark
+    public boolean bloomFilterLookup() {
+        int i = next++ % QUERY_COUNT;
+        return filter.mightContainFileSize(querySizes[i]) && filter.mightContain(queryHashes[i]);
+    }
+}